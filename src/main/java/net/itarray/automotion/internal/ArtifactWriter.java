@@ -0,0 +1,132 @@
+package net.itarray.automotion.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Writes report artifacts like screenshots, drawings and json results in the background, so a failing
+ * validation returns to the test without waiting for images to be encoded.
+ * At most {@value #QUEUE_CAPACITY} writes are queued; beyond that the caller writes itself, which bounds
+ * the memory held by pending images. Failed writes are reported when their file is awaited or the writer
+ * is flushed, all failures of a flush at once. Idle threads end, so pending writes do not keep the JVM alive longer than needed.
+ */
+public class ArtifactWriter {
+
+    private static final int THREADS = 2;
+    private static final int QUEUE_CAPACITY = 16;
+
+    private final ThreadPoolExecutor executor;
+    private final Map<File, Writing> pending = new ConcurrentHashMap<>();
+
+    public ArtifactWriter() {
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 1, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public void write(File file, Artifact artifact) {
+        Writing writing = new Writing(file, artifact);
+        pending.put(file, writing);
+        executor.execute(writing);
+    }
+
+    /**
+     * Waits until the file has been written, if it is being written.
+     */
+    public void await(File file) {
+        Writing writing = pending.remove(file);
+        if (writing != null) {
+            writing.await();
+        }
+    }
+
+    /**
+     * Waits until all files written so far have been written.
+     *
+     * @throws RuntimeException naming every file that could not be written
+     */
+    public void flush() {
+        Map<File, Throwable> failures = awaitAll();
+        if (!failures.isEmpty()) {
+            throw failure(failures);
+        }
+    }
+
+    /**
+     * Waits until all files written so far have been written or have failed, so one failed write does
+     * not keep the others from being awaited.
+     *
+     * @return the files that could not be written, with the reason
+     */
+    public Map<File, Throwable> awaitAll() {
+        Map<File, Throwable> failures = new LinkedHashMap<>();
+        for (File file : new ArrayList<>(pending.keySet())) {
+            try {
+                await(file);
+            } catch (RuntimeException e) {
+                failures.put(file, e.getCause() != null ? e.getCause() : e);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * One exception for all files that could not be written, with their reasons suppressed.
+     */
+    public static RuntimeException failure(Map<File, Throwable> failures) {
+        RuntimeException failure = new RuntimeException("Cannot write " + failures.entrySet().stream()
+                .map(entry -> entry.getKey() + " (" + entry.getValue().getMessage() + ")")
+                .collect(Collectors.joining(", ")));
+        failures.values().forEach(failure::addSuppressed);
+        return failure;
+    }
+
+    public interface Artifact {
+        void writeTo(File file) throws IOException;
+    }
+
+    private class Writing extends FutureTask<Void> {
+        private final File file;
+
+        private Writing(File file, Artifact artifact) {
+            super(() -> {
+                artifact.writeTo(file);
+                return null;
+            });
+            this.file = file;
+        }
+
+        /**
+         * Successful writes are forgotten; failed ones are kept to be reported.
+         */
+        @Override
+        protected void done() {
+            try {
+                get();
+                pending.remove(file, this);
+            } catch (InterruptedException | ExecutionException ignored) {
+            }
+        }
+
+        private void await() {
+            try {
+                get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while writing " + file, e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Cannot write " + file, e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package net.itarray.automotion.internal;
+
+import net.itarray.automotion.internal.geometry.Scalar;
+
+import java.util.List;
+
+/**
+ * Finds the elements of a chunk that violate a rule, as indexes into the chunk. Error messages are
+ * produced by validating the found elements again, so only they need to be turned into {@link UIElement}s.
+ */
+public interface ChunkRules {
+
+    enum Edge { LEFT, TOP, RIGHT, BOTTOM }
+
+    enum Extent { WIDTH, HEIGHT, SIZE }
+
+    /**
+     * For every element the first following element it overlaps with, as index pairs.
+     */
+    List<int[]> findOverlaps(Scalar tolerance);
+
+    /**
+     * Indexes of the elements whose edge differs from the edge of the first element.
+     */
+    List<Integer> findNotAligned(Edge edge, Scalar tolerance);
+
+    /**
+     * Indexes of the elements whose extent differs from the extent of their successor.
+     */
+    List<Integer> findDifferentExtents(Extent extent, Scalar tolerance);
+
+    /**
+     * All pairs of elements with equal extents, ordered by their first and then by their second index.
+     */
+    List<int[]> findEqualExtents(Extent extent, Scalar tolerance);
+
+    /**
+     * The number of elements per row, ordered from top to bottom. Tops that are at most the tolerance
+     * apart from the next smaller top are in the same row.
+     */
+    List<Integer> countRows(Scalar tolerance);
+}
@@ -0,0 +1,23 @@
+package net.itarray.automotion.internal;
+
+import org.openqa.selenium.WebElement;
+
+import java.util.List;
+
+public class ComputedStyleCSSSource extends CSSSource {
+
+    private final ComputedStyles computedStyles;
+    private final WebElement webElement;
+    private final List<WebElement> batch;
+
+    public ComputedStyleCSSSource(ComputedStyles computedStyles, WebElement webElement, List<WebElement> batch) {
+        this.computedStyles = computedStyles;
+        this.webElement = webElement;
+        this.batch = batch;
+    }
+
+    @Override
+    public String getCssValue(String propertyName) {
+        return computedStyles.getCssValue(webElement, propertyName, batch);
+    }
+}
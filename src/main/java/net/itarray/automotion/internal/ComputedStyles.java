@@ -0,0 +1,98 @@
+package net.itarray.automotion.internal;
+
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computed style values of the elements of one snapshot. The first request of a property retrieves
+ * it for all elements of the batch the element was created in, usually the elements of one validator,
+ * in a single script; later requests are answered from memory. If the batch fails, for example because
+ * one of its elements is stale, only the requested element is asked.
+ */
+public class ComputedStyles {
+
+    private final DriverFacade driver;
+    private final Map<WebElement, Map<String, String>> valuesByElement = new LinkedHashMap<>();
+    private PageLayout layout = new PageLayout();
+
+    public ComputedStyles(DriverFacade driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Values captured in the layout are answered without asking the driver.
+     */
+    public void useLayout(PageLayout layout) {
+        this.layout = layout;
+    }
+
+    public CSSSource cssSourceOf(WebElement webElement) {
+        return cssSourceOf(webElement, Collections.singletonList(webElement));
+    }
+
+    public CSSSource cssSourceOf(WebElement webElement, List<WebElement> batch) {
+        valuesOf(webElement);
+        return new ComputedStyleCSSSource(this, webElement, batch);
+    }
+
+    public String getCssValue(WebElement webElement, String propertyName) {
+        return getCssValue(webElement, propertyName, Collections.singletonList(webElement));
+    }
+
+    public String getCssValue(WebElement webElement, String propertyName, List<WebElement> batch) {
+        Map<String, String> values = valuesOf(webElement);
+        if (!values.containsKey(propertyName)) {
+            String captured = layout.getCssValue(webElement, propertyName);
+            if (captured != null) {
+                values.put(propertyName, captured);
+            } else {
+                retrieve(webElement, propertyName, batch);
+            }
+        }
+        return values.get(propertyName);
+    }
+
+    private Map<String, String> valuesOf(WebElement webElement) {
+        return valuesByElement.computeIfAbsent(webElement, e -> new HashMap<>());
+    }
+
+    private void retrieve(WebElement requested, String propertyName, List<WebElement> batch) {
+        if (!driver.isBatchedCaptureSupported()) {
+            valuesOf(requested).put(propertyName, requested.getCssValue(propertyName));
+            return;
+        }
+        Set<WebElement> missing = new LinkedHashSet<>();
+        missing.add(requested);
+        for (WebElement webElement : batch) {
+            Map<String, String> values = valuesOf(webElement);
+            if (!values.containsKey(propertyName)) {
+                String captured = layout.getCssValue(webElement, propertyName);
+                if (captured != null) {
+                    values.put(propertyName, captured);
+                } else {
+                    missing.add(webElement);
+                }
+            }
+        }
+        List<WebElement> retrieving = new ArrayList<>(missing);
+        List<List<String>> retrieved;
+        try {
+            retrieved = driver.retrieveCssValues(retrieving, Collections.singletonList(propertyName));
+        } catch (WebDriverException e) {
+            valuesOf(requested).put(propertyName, requested.getCssValue(propertyName));
+            return;
+        }
+        for (int i = 0; i < retrieving.size(); i++) {
+            valuesOf(retrieving.get(i)).put(propertyName, retrieved.get(i).get(0));
+        }
+    }
+}
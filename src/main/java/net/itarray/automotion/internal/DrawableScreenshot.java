@@ -8,7 +8,6 @@ import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.IOException;
 
 import static net.itarray.automotion.validation.Constants.TARGET_AUTOMOTION_IMG;
 
@@ -43,10 +42,8 @@ public class DrawableScreenshot {
         }
     }
 
-    public static File takeScreenshot(DriverFacade driver, String rootElementReadableName) {
-        File screenshotName = new File(TARGET_AUTOMOTION_IMG + rootElementReadableName.replaceAll("[\\W]|_", "") + "-" + System.currentTimeMillis() + Helper.getGeneratedStringWithLength(7) + ".png");
-        driver.takeScreenshot(screenshotName);
-        return screenshotName;
+    public static File screenshotFile(String rootElementReadableName) {
+        return new File(TARGET_AUTOMOTION_IMG + rootElementReadableName.replaceAll("[\\W]|_", "") + "-" + System.currentTimeMillis() + Helper.getGeneratedStringWithLength(7) + ".png");
     }
 
     public File getScreenshotName() {
@@ -67,12 +64,11 @@ public class DrawableScreenshot {
         graphics.drawHorizontalLine(y.intValue(), extend.getX().intValue());
     }
 
-    public void saveDrawing() {
-        try {
-            if (drawings != null && drawingsOutput != null) {
-                ImageIO.write(drawings, "png", drawingsOutput);
-            }
-        } catch (NullPointerException | IOException ignored) {}
+    public void saveDrawing(ArtifactWriter artifacts) {
+        if (drawings != null && drawingsOutput != null) {
+            BufferedImage image = drawings;
+            artifacts.write(drawingsOutput, file -> ImageIO.write(image, "png", file));
+        }
 
         if (drawings != null) {
             drawings.getGraphics().dispose();
@@ -3,6 +3,8 @@ package net.itarray.automotion.internal;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.ios.IOSDriver;
+import net.itarray.automotion.internal.geometry.PackedRectangles;
+import net.itarray.automotion.internal.geometry.Rectangle;
 import net.itarray.automotion.internal.geometry.Vector;
 import net.itarray.automotion.tools.general.SystemHelper;
 import org.openqa.selenium.*;
@@ -15,18 +17,133 @@ import ru.yandex.qatools.ashot.Screenshot;
 import ru.yandex.qatools.ashot.shooting.ShootingStrategies;
 
 import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static java.lang.Integer.parseInt;
 import static net.itarray.automotion.tools.environment.EnvironmentFactory.getApp;
 import static net.itarray.automotion.tools.environment.EnvironmentFactory.isFirefox;
 
 public class DriverFacade {
+    // elements no longer attached to the page answer null instead of failing the whole script
+    private static final String BOUNDING_CLIENT_RECTS_SCRIPT =
+            "var elements = arguments[0], rects = [];" +
+            "var scrollX = window.pageXOffset, scrollY = window.pageYOffset;" +
+            "for (var i = 0; i < elements.length; i++) {" +
+            "  try {" +
+            "    if (elements[i].isConnected === false) {" +
+            "      rects.push(null);" +
+            "      continue;" +
+            "    }" +
+            "    var rect = elements[i].getBoundingClientRect();" +
+            "    rects.push([rect.left + scrollX, rect.top + scrollY, rect.width, rect.height]);" +
+            "  } catch (e) {" +
+            "    rects.push(null);" +
+            "  }" +
+            "}" +
+            "return rects;";
+
+    // reads like WebElement.getTagName(), getAttribute("id"), getAttribute("class") and getText() do:
+    // id and class are read as properties, and elements that are not displayed have no text;
+    // whitespace of the text is normalized by toNameProperties
+    private static final String NAME_PROPERTIES_FUNCTION =
+            "function nameProperties(element, withText) {" +
+            "  var style = window.getComputedStyle(element);" +
+            "  var displayed = element.getClientRects().length > 0 && style.visibility !== 'hidden' && style.opacity !== '0';" +
+            "  var className = typeof element.className === 'string' ? element.className : element.getAttribute('class');" +
+            "  return [element.tagName.toLowerCase(), element.id, className, displayed && withText ? element.innerText || '' : ''];" +
+            "}";
+
+    private static final String NAME_PROPERTIES_SCRIPT =
+            NAME_PROPERTIES_FUNCTION +
+            "var elements = arguments[0], properties = [];" +
+            "for (var i = 0; i < elements.length; i++) {" +
+            "  properties.push(nameProperties(elements[i], true));" +
+            "}" +
+            "return properties;";
+
+    // colors are standardized to rgba like WebElement.getCssValue() does
+    private static final String COMPUTED_STYLES_SCRIPT =
+            "var elements = arguments[0], names = arguments[1], styles = [];" +
+            "for (var i = 0; i < elements.length; i++) {" +
+            "  var style = window.getComputedStyle(elements[i]), values = [];" +
+            "  for (var j = 0; j < names.length; j++) {" +
+            "    var value = style.getPropertyValue(names[j]);" +
+            "    if (names[j].indexOf('color') >= 0) {" +
+            "      value = value.replace(/rgb\\((\\d+), (\\d+), (\\d+)\\)/g, 'rgba($1, $2, $3, 1)');" +
+            "    }" +
+            "    values.push(value);" +
+            "  }" +
+            "  styles.push(values);" +
+            "}" +
+            "return styles;";
+
+    // roots are in document order, so a root nested in an earlier one is nested in the last captured one.
+    // descendants are in document order as well, so a child's index is the number of its siblings seen so far.
+    // texts are only captured for leaves, containers would repeat the text of their whole subtree
+    private static final String PAGE_LAYOUT_SCRIPT =
+            NAME_PROPERTIES_FUNCTION +
+            "var roots = document.querySelectorAll(arguments[0]), names = arguments[1];" +
+            "var scrollX = window.pageXOffset, scrollY = window.pageYOffset;" +
+            "var elements = [], paths = [], rects = [], properties = [], styles = [];" +
+            "var pathsByElement = new Map(), childCounts = new Map(), lastRoot = null;" +
+            "function rootPath(element) {" +
+            "  var parent = element.parentElement, tag = element.tagName.toLowerCase();" +
+            "  if (parent === null) {" +
+            "    return tag;" +
+            "  }" +
+            "  return rootPath(parent) + '>' + tag + ':nth-child(' + (Array.prototype.indexOf.call(parent.children, element) + 1) + ')';" +
+            "}" +
+            "function childPath(element) {" +
+            "  var parent = element.parentElement, index = (childCounts.get(parent) || 0) + 1;" +
+            "  childCounts.set(parent, index);" +
+            "  return pathsByElement.get(parent) + '>' + element.tagName.toLowerCase() + ':nth-child(' + index + ')';" +
+            "}" +
+            "function capture(element, path) {" +
+            "  var rect = element.getBoundingClientRect(), style = window.getComputedStyle(element), values = {};" +
+            "  for (var j = 0; j < names.length; j++) {" +
+            "    var value = style.getPropertyValue(names[j]);" +
+            "    if (names[j].indexOf('color') >= 0) {" +
+            "      value = value.replace(/rgb\\((\\d+), (\\d+), (\\d+)\\)/g, 'rgba($1, $2, $3, 1)');" +
+            "    }" +
+            "    values[names[j]] = value;" +
+            "  }" +
+            "  pathsByElement.set(element, path);" +
+            "  elements.push(element);" +
+            "  paths.push(path);" +
+            "  rects.push([rect.left + scrollX, rect.top + scrollY, rect.width, rect.height]);" +
+            "  properties.push(nameProperties(element, element.children.length === 0));" +
+            "  styles.push(values);" +
+            "}" +
+            "for (var i = 0; i < roots.length; i++) {" +
+            "  if (lastRoot !== null && lastRoot.contains(roots[i])) {" +
+            "    continue;" +
+            "  }" +
+            "  lastRoot = roots[i];" +
+            "  capture(lastRoot, rootPath(lastRoot));" +
+            "  var descendants = lastRoot.querySelectorAll('*');" +
+            "  for (var d = 0; d < descendants.length; d++) {" +
+            "    capture(descendants[d], childPath(descendants[d]));" +
+            "  }" +
+            "}" +
+            "return [elements, paths, rects, properties, styles];";
+
     private final WebDriver driver;
+    private String browserName;
+    private String appiumContext;
 
     public DriverFacade(WebDriver driver) {
         this.driver = driver;
@@ -36,44 +153,85 @@ public class DriverFacade {
         return ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
     }
 
+    /**
+     * Takes a screenshot with the header and footer cuts of the system properties headerCutPx and footerCutPx.
+     */
     public void takeScreenshot(File file) {
+        takeScreenshot(file, parseInt(System.getProperty("headerCutPx", "0")), parseInt(System.getProperty("footerCutPx", "0")));
+    }
+
+    /**
+     * @param headerCutPx the height of a fixed header, cut from all but the first viewport of a full page screenshot
+     * @param footerCutPx the height of a fixed footer, cut from all but the last viewport of a full page screenshot
+     */
+    public void takeScreenshot(File file, int headerCutPx, int footerCutPx) {
+        takeScreenshot(file, headerCutPx, footerCutPx, null);
+    }
+
+    /**
+     * The screenshot is captured right away; encoding and storing it is left to the given writer, if any.
+     *
+     * @return the size of the screenshot, known without reading it back
+     */
+    public Vector takeScreenshot(File file, int headerCutPx, int footerCutPx, ArtifactWriter artifacts) {
         file.getParentFile().mkdirs();
 
-        if (!isPhantomJSDriver() && !isAppiumContext() && parseInt(getZoom().replace("%", "")) <= 100) {
-            long windowYOffset = (long) executeScript("return window.pageYOffset");
-            long windowXOffset = (long) executeScript("return window.pageXOffset");
+        if (!isPhantomJSDriver() && !isAppiumContext()) {
+            PageMetrics metrics = retrievePageMetrics();
+            if (metrics.getZoomPercentage() <= 100) {
+                Screenshot screenshot = new AShot()
+                        .shootingStrategy(ShootingStrategies.viewportRetina(100, headerCutPx, footerCutPx,
+                                (SystemHelper.isRetinaDisplay()) ? 2 : 1)).takeScreenshot(driver);
 
-            Screenshot screenshot = new AShot()
-                    .shootingStrategy(ShootingStrategies.viewportRetina(100,
-                            Integer.parseInt(System.getProperty("headerCutPx") != null ? System.getProperty("headerCutPx") : "0"),
-                            Integer.parseInt(System.getProperty("footerCutPx") != null ? System.getProperty("footerCutPx") : "0"),
-                            (SystemHelper.isRetinaDisplay()) ? 2 : 1)).takeScreenshot(driver);
+                write(file, artifacts, f -> ImageIO.write(screenshot.getImage(), "PNG", f));
 
-            try {
-                ImageIO.write(screenshot.getImage(), "PNG", file);
-            } catch (IOException e) {
-                e.printStackTrace();
+                executeScript("window.scrollTo(" + metrics.getScrollX() + ", " + metrics.getScrollY() + ")");
+                return new Vector(screenshot.getImage().getWidth(), screenshot.getImage().getHeight());
             }
+        }
 
-            executeScript("window.scrollTo(" + windowXOffset + ", " + windowYOffset + ")");
-        } else {
-            byte[] bytes = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+        byte[] bytes = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
 
-            try (OutputStream stream = new FileOutputStream(file)) {
+        write(file, artifacts, f -> {
+            try (OutputStream stream = new FileOutputStream(f)) {
                 stream.write(bytes);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
             }
+        });
+        return extendOf(new ByteArrayInputStream(bytes));
+    }
+
+    protected static void write(File file, ArtifactWriter artifacts, ArtifactWriter.Artifact artifact) {
+        if (artifacts != null) {
+            artifacts.write(file, artifact);
+            return;
+        }
+        try {
+            artifact.writeTo(file);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
     }
 
     public Vector getExtend(File screenshotName) {
-        try {
-            BufferedImage img = ImageIO.read(screenshotName);
+        return extendOf(screenshotName);
+    }
 
-            int width = img.getWidth();
-            int height = img.getHeight();
-            return new Vector(width, height);
+    /**
+     * The size of an encoded image, read from its header without decoding the pixels.
+     */
+    private static Vector extendOf(Object encoded) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(encoded)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : Collections.emptyIterator();
+            if (!readers.hasNext()) {
+                throw new IOException("Cannot read image: " + encoded);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new Vector(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -85,11 +243,18 @@ public class DriverFacade {
     }
 
     public boolean isChromeDriver() {
-        return (driver instanceof ChromeDriver) || ((RemoteWebDriver) driver).getCapabilities().getBrowserName().toLowerCase().equals("chrome");
+        return (driver instanceof ChromeDriver) || getBrowserName().equals("chrome");
     }
 
     public boolean isFirefoxDriver() {
-        return (driver instanceof FirefoxDriver) || ((RemoteWebDriver) driver).getCapabilities().getBrowserName().toLowerCase().equals("firefox");
+        return (driver instanceof FirefoxDriver) || getBrowserName().equals("firefox");
+    }
+
+    private String getBrowserName() {
+        if (browserName == null) {
+            browserName = ((RemoteWebDriver) driver).getCapabilities().getBrowserName().toLowerCase();
+        }
+        return browserName;
     }
 
     public boolean isPhantomJSDriver() {
@@ -112,20 +277,185 @@ public class DriverFacade {
         if (!(driver instanceof AppiumDriver)) {
             return false;
         }
-        return ((AppiumDriver) driver).getContext().startsWith("WEB");
+        return getAppiumContext().startsWith("WEB");
     }
 
     public boolean isAppiumNativeMobileContext() {
         if (!(driver instanceof AppiumDriver)) {
             return false;
         }
-        return ((AppiumDriver) driver).getContext().contains("NATIVE");
+        return getAppiumContext().contains("NATIVE");
+    }
+
+    private String getAppiumContext() {
+        if (appiumContext == null) {
+            appiumContext = ((AppiumDriver) driver).getContext();
+        }
+        return appiumContext;
+    }
+
+    /**
+     * The appium context is retrieved once and remembered. Call this after switching contexts.
+     */
+    public void invalidateContext() {
+        appiumContext = null;
     }
 
     public Object executeScript(String script) {
         return ((JavascriptExecutor) driver).executeScript(script);
     }
 
+    public Object executeScript(String script, Object... args) {
+        return ((JavascriptExecutor) driver).executeScript(script, args);
+    }
+
+    public WebElement findElement(By by) {
+        return driver.findElement(by);
+    }
+
+    public List<WebElement> findElements(By by) {
+        return driver.findElements(by);
+    }
+
+    public boolean isBatchedCaptureSupported() {
+        return driver instanceof JavascriptExecutor && !isAppiumNativeMobileContext();
+    }
+
+    /**
+     * Retrieves the page coordinates of all given elements. Where scripts can be executed this
+     * needs a single round-trip for the whole list, otherwise every element is asked for its
+     * location and size.
+     *
+     * @throws StaleElementReferenceException if an element is no longer attached to the page
+     */
+    public PackedRectangles retrieveRectangles(List<WebElement> webElements) {
+        List<Integer> staleIndexes = new ArrayList<>();
+        PackedRectangles rectangles = retrieveRectangles(webElements, staleIndexes);
+        if (!staleIndexes.isEmpty()) {
+            throw new StaleElementReferenceException("Elements at " + staleIndexes + " are no longer attached to the page");
+        }
+        return rectangles;
+    }
+
+    /**
+     * Like {@link #retrieveRectangles(List)}, but where scripts can be executed an element no longer
+     * attached to the page gets an empty rectangle and its index is added to the stale indexes. The
+     * driver may still reject the whole list if it notices a stale element before running the script.
+     */
+    public PackedRectangles retrieveRectangles(List<WebElement> webElements, List<Integer> staleIndexes) {
+        PackedRectangles rectangles = new PackedRectangles(webElements.size());
+        if (webElements.isEmpty() || !isBatchedCaptureSupported()) {
+            for (WebElement webElement : webElements) {
+                rectangles.add(webElement);
+            }
+            return rectangles;
+        }
+        List<?> rects = (List<?>) executeScript(BOUNDING_CLIENT_RECTS_SCRIPT, webElements);
+        for (Object rect : rects) {
+            if (rect == null) {
+                staleIndexes.add(rectangles.size());
+                rectangles.add(0, 0, 0, 0);
+                continue;
+            }
+            List<?> values = (List<?>) rect;
+            int x = ((Number) values.get(0)).intValue();
+            int y = ((Number) values.get(1)).intValue();
+            rectangles.add(x, y, x + ((Number) values.get(2)).intValue(), y + ((Number) values.get(3)).intValue());
+        }
+        return rectangles;
+    }
+
+    /**
+     * Retrieves tag name, id, class and text of all given elements - in a single round-trip where
+     * scripts can be executed.
+     */
+    public List<List<String>> retrieveNameProperties(List<WebElement> webElements) {
+        if (webElements.isEmpty() || !isBatchedCaptureSupported()) {
+            return webElements.stream().map(DriverFacade::retrieveNameProperties).collect(Collectors.toList());
+        }
+        List<?> properties = (List<?>) executeScript(NAME_PROPERTIES_SCRIPT, webElements);
+        List<List<String>> result = new ArrayList<>(properties.size());
+        for (Object elementProperties : properties) {
+            result.add(toNameProperties((List<?>) elementProperties));
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the computed values of the given css properties for all given elements - in a single
+     * round-trip where scripts can be executed.
+     */
+    public List<List<String>> retrieveCssValues(List<WebElement> webElements, List<String> propertyNames) {
+        if (webElements.isEmpty() || !isBatchedCaptureSupported()) {
+            List<List<String>> result = new ArrayList<>(webElements.size());
+            for (WebElement webElement : webElements) {
+                result.add(propertyNames.stream().map(webElement::getCssValue).collect(Collectors.toList()));
+            }
+            return result;
+        }
+        List<?> styles = (List<?>) executeScript(COMPUTED_STYLES_SCRIPT, webElements, propertyNames);
+        List<List<String>> result = new ArrayList<>(styles.size());
+        for (Object values : styles) {
+            result.add(((List<?>) values).stream().map(v -> v == null ? "" : v.toString()).collect(Collectors.toList()));
+        }
+        return result;
+    }
+
+    /**
+     * Captures page coordinates and the given computed styles of all elements matching the css selector
+     * and of all their descendants in a single round-trip.
+     */
+    public PageLayout retrievePageLayout(String cssSelector, List<String> cssPropertyNames) {
+        List<?> captured = (List<?>) executeScript(PAGE_LAYOUT_SCRIPT, cssSelector, cssPropertyNames);
+        List<?> elements = (List<?>) captured.get(0);
+        List<?> paths = (List<?>) captured.get(1);
+        List<?> rects = (List<?>) captured.get(2);
+        List<?> properties = (List<?>) captured.get(3);
+        List<?> styles = (List<?>) captured.get(4);
+        PageLayout layout = new PageLayout();
+        for (int i = 0; i < elements.size(); i++) {
+            List<String> nameProperties = toNameProperties((List<?>) properties.get(i));
+            Map<String, String> values = new HashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) styles.get(i)).entrySet()) {
+                values.put(entry.getKey().toString(), entry.getValue() == null ? "" : entry.getValue().toString());
+            }
+            layout.add((WebElement) elements.get(i), paths.get(i).toString(), toRectangle((List<?>) rects.get(i)), nameProperties, values);
+        }
+        return layout;
+    }
+
+    public static List<String> retrieveNameProperties(WebElement webElement) {
+        return Arrays.asList(
+                webElement.getTagName(),
+                webElement.getAttribute("id"),
+                webElement.getAttribute("class"),
+                webElement.getText());
+    }
+
+    private static List<String> toNameProperties(List<?> properties) {
+        List<String> nameProperties = properties.stream().map(p -> p == null ? null : p.toString()).collect(Collectors.toList());
+        nameProperties.set(3, visibleText(nameProperties.get(3)));
+        return nameProperties;
+    }
+
+    // normalizes like WebElement.getText() does: non-breaking spaces become spaces, runs of whitespace
+    // within a line collapse to one space, and lines are trimmed with empty lines dropped
+    private static String visibleText(String text) {
+        return Arrays.stream(text.replace('\u00a0', ' ').split("\n"))
+                .map(line -> line.replaceAll("[ \\t\\r\\f]+", " ").trim())
+                .filter(line -> !line.isEmpty())
+                .collect(Collectors.joining("\n"));
+    }
+
+    // truncates like WebElement.getLocation() and WebElement.getSize() do
+    private static Rectangle toRectangle(List<?> rect) {
+        int x = ((Number) rect.get(0)).intValue();
+        int y = ((Number) rect.get(1)).intValue();
+        int width = ((Number) rect.get(2)).intValue();
+        int height = ((Number) rect.get(3)).intValue();
+        return new Rectangle(x, y, x + width, y + height);
+    }
+
     public String getZoom() {
         if (!isAppiumContext()) {
             String zoom = (String) executeScript(getZoomScript());
@@ -161,41 +491,44 @@ public class DriverFacade {
         }
     }
 
-    private long retrievePageHeight() {
-        if (!isAppiumContext()) {
-            if (getZoom().equals("100%")) {
-                return (long) executeScript("if (self.innerHeight) {return self.innerHeight;} if (document.documentElement && document.documentElement.clientHeight) {return document.documentElement.clientHeight;}if (document.body) {return document.body.clientHeight;}");
-            } else {
-                return (long) executeScript("return document.getElementsByTagName('body')[0].offsetHeight");
-            }
-        } else {
-            if (isAppiumNativeMobileContext() || isAppiumIOSContext()) {
-                return driver.manage().window().getSize().getHeight();
-            } else {
-                return (long) executeScript("if (self.innerHeight) {return self.innerHeight;} if (document.documentElement && document.documentElement.clientHeight) {return document.documentElement.clientHeight;}if (document.body) {return document.body.clientHeight;}");
-            }
+    /**
+     * Retrieves size, zoom, scroll offsets and device pixel ratio of the page in a single script. Native
+     * mobile contexts and iOS answer the window size without executing a script.
+     */
+    public PageMetrics retrievePageMetrics() {
+        if (isAppiumNativeMobileContext() || isAppiumIOSContext()) {
+            return new PageMetrics(driver.manage().window().getSize(), "100%", 0, 0, 1);
+        }
+        List<?> metrics = (List<?>) executeScript(getPageMetricsScript());
+        String zoom = (String) metrics.get(2);
+        if (zoom == null || zoom.equals("")) {
+            zoom = "100%";
         }
+        return new PageMetrics(
+                new Dimension(((Number) metrics.get(0)).intValue(), ((Number) metrics.get(1)).intValue()),
+                zoom,
+                ((Number) metrics.get(3)).longValue(),
+                ((Number) metrics.get(4)).longValue(),
+                ((Number) metrics.get(5)).doubleValue());
     }
 
-    private long retrievePageWidth() {
-        if (!isAppiumContext()) {
-            if (getZoom().equals("100%")) {
-                String script = "if (self.innerWidth) {return self.innerWidth;} if (document.documentElement && document.documentElement.clientWidth) {return document.documentElement.clientWidth;}if (document.body) {return document.body.clientWidth;}";
-                return (long) executeScript(script);
-            } else {
-                return (long) executeScript("return document.getElementsByTagName('body')[0].offsetWidth");
-            }
-        } else {
-            if (isAppiumNativeMobileContext() || isAppiumIOSContext()) {
-                return driver.manage().window().getSize().getWidth();
-            } else {
-                return (long) executeScript("if (self.innerWidth) {return self.innerWidth;} if (document.documentElement && document.documentElement.clientWidth) {return document.documentElement.clientWidth;}if (document.body) {return document.body.clientWidth;}");
-            }
-        }
+    // zoomed pages are measured by their body; firefox zooms by transform and appium does not zoom at all
+    private String getPageMetricsScript() {
+        String zoom = isFirefox() || isAppiumContext() ? "null" : "document.body.style.zoom";
+        return "var zoom = " + zoom + ", width, height;" +
+                "if (!zoom || zoom === '100%') {" +
+                "  width = self.innerWidth || (document.documentElement && document.documentElement.clientWidth) || (document.body && document.body.clientWidth);" +
+                "  height = self.innerHeight || (document.documentElement && document.documentElement.clientHeight) || (document.body && document.body.clientHeight);" +
+                "} else {" +
+                "  var body = document.getElementsByTagName('body')[0];" +
+                "  width = body.offsetWidth;" +
+                "  height = body.offsetHeight;" +
+                "}" +
+                "return [width, height, zoom || '', window.pageXOffset, window.pageYOffset, window.devicePixelRatio || 1];";
     }
 
     public Dimension retrievePageSize() {
-        return new Dimension((int) retrievePageWidth(), (int) retrievePageHeight());
+        return retrievePageMetrics().getPageSize();
     }
 
     public Dimension getResolution() {
@@ -0,0 +1,162 @@
+package net.itarray.automotion.internal;
+
+import net.itarray.automotion.internal.geometry.Scalar;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates chunk rules next to the DOM. Only the indexes of violating elements are returned, so the
+ * cost of a rule does not depend on the size of the chunk. Coordinates are truncated like
+ * {@link DriverFacade#retrieveRectangles(List)} does and the tolerance is applied like the local rules
+ * do; the returned candidates are meant to be re-validated locally to produce the error messages.
+ */
+public class InBrowserChunkRules implements ChunkRules {
+
+    private static final String OVERLAPS = "overlaps";
+    private static final String NOT_ALIGNED = "notAligned";
+    private static final String DIFFERENT_EXTENTS = "differentExtents";
+    private static final String EQUAL_EXTENTS = "equalExtents";
+    private static final String ROW_COUNTS = "rowCounts";
+
+    // boxes are [left, top, right, bottom]; an edge parameter is an index into a box
+    private static final String CHUNK_RULES_SCRIPT =
+            "var elements = arguments[0], rule = arguments[1], tolerance = arguments[2], parameter = arguments[3];" +
+            "var scrollX = window.pageXOffset, scrollY = window.pageYOffset, boxes = [], result = [];" +
+            "for (var i = 0; i < elements.length; i++) {" +
+            "  var rect = elements[i].getBoundingClientRect();" +
+            "  var left = Math.trunc(rect.left + scrollX), top = Math.trunc(rect.top + scrollY);" +
+            "  boxes.push([left, top, left + Math.trunc(rect.width), top + Math.trunc(rect.height)]);" +
+            "}" +
+            "var differs = function (a, b) {" +
+            "  var dx = (a[2] - a[0]) - (b[2] - b[0]), dy = (a[3] - a[1]) - (b[3] - b[1]);" +
+            "  return parameter === 'WIDTH' ? Math.abs(dx) > tolerance" +
+            "      : parameter === 'HEIGHT' ? Math.abs(dy) > tolerance" +
+            "      : dx * dx + dy * dy > tolerance * tolerance;" +
+            "};" +
+            "if (rule === '" + OVERLAPS + "') {" +
+            "  var order = boxes.map(function (box, i) { return i; }).sort(function (i, j) { return boxes[i][0] - boxes[j][0]; });" +
+            "  var active = [], first = [];" +
+            "  for (var k = 0; k < order.length; k++) {" +
+            "    var current = order[k], a = boxes[current];" +
+            "    active = active.filter(function (i) { return boxes[i][2] - tolerance > a[0]; });" +
+            "    for (var m = 0; m < active.length; m++) {" +
+            "      var other = active[m], b = boxes[other];" +
+            "      if (a[0] < b[2] - tolerance && b[0] < a[2] - tolerance && a[1] < b[3] - tolerance && b[1] < a[3] - tolerance) {" +
+            "        var i = Math.min(current, other), j = Math.max(current, other);" +
+            "        if (first[i] === undefined || j < first[i]) {" +
+            "          first[i] = j;" +
+            "        }" +
+            "      }" +
+            "    }" +
+            "    active.push(current);" +
+            "  }" +
+            "  for (var i = 0; i < boxes.length; i++) {" +
+            "    if (first[i] !== undefined) {" +
+            "      result.push([i, first[i]]);" +
+            "    }" +
+            "  }" +
+            "} else if (rule === '" + NOT_ALIGNED + "') {" +
+            "  for (var i = 1; i < boxes.length; i++) {" +
+            "    if (Math.abs(boxes[i][parameter] - boxes[0][parameter]) > tolerance) {" +
+            "      result.push(i);" +
+            "    }" +
+            "  }" +
+            "} else if (rule === '" + DIFFERENT_EXTENTS + "') {" +
+            "  for (var i = 0; i < boxes.length - 1; i++) {" +
+            "    if (differs(boxes[i], boxes[i + 1])) {" +
+            "      result.push(i);" +
+            "    }" +
+            "  }" +
+            "} else if (rule === '" + EQUAL_EXTENTS + "') {" +
+            "  var cell = tolerance + 1, buckets = {}, bx = [], by = [];" +
+            "  var rx = parameter === 'HEIGHT' ? 0 : 1, ry = parameter === 'WIDTH' ? 0 : 1;" +
+            "  for (var i = 0; i < boxes.length; i++) {" +
+            "    bx.push(rx * Math.floor((boxes[i][2] - boxes[i][0]) / cell));" +
+            "    by.push(ry * Math.floor((boxes[i][3] - boxes[i][1]) / cell));" +
+            "    (buckets[bx[i] + ',' + by[i]] = buckets[bx[i] + ',' + by[i]] || []).push(i);" +
+            "  }" +
+            "  for (var i = 0; i < boxes.length; i++) {" +
+            "    var equal = [];" +
+            "    for (var x = -rx; x <= rx; x++) {" +
+            "      for (var y = -ry; y <= ry; y++) {" +
+            "        (buckets[(bx[i] + x) + ',' + (by[i] + y)] || []).forEach(function (j) {" +
+            "          if (j > i && !differs(boxes[i], boxes[j])) {" +
+            "            equal.push(j);" +
+            "          }" +
+            "        });" +
+            "      }" +
+            "    }" +
+            "    equal.sort(function (a, b) { return a - b; }).forEach(function (j) { result.push([i, j]); });" +
+            "  }" +
+            "} else if (rule === '" + ROW_COUNTS + "') {" +
+            "  var tops = boxes.map(function (box) { return box[1]; }).sort(function (a, b) { return a - b; });" +
+            "  for (var i = 0; i < tops.length; i++) {" +
+            "    if (i > 0 && tops[i] - tops[i - 1] <= tolerance) {" +
+            "      result[result.length - 1]++;" +
+            "    } else {" +
+            "      result.push(1);" +
+            "    }" +
+            "  }" +
+            "}" +
+            "return result;";
+
+    private final DriverFacade driver;
+    private final List<WebElement> webElements;
+
+    public InBrowserChunkRules(DriverFacade driver, List<WebElement> webElements) {
+        this.driver = driver;
+        this.webElements = webElements;
+    }
+
+    @Override
+    public List<int[]> findOverlaps(Scalar tolerance) {
+        return pairs(evaluate(OVERLAPS, tolerance, null));
+    }
+
+    @Override
+    public List<Integer> findNotAligned(Edge edge, Scalar tolerance) {
+        return indexes(evaluate(NOT_ALIGNED, tolerance, edge.ordinal()));
+    }
+
+    @Override
+    public List<Integer> findDifferentExtents(Extent extent, Scalar tolerance) {
+        return indexes(evaluate(DIFFERENT_EXTENTS, tolerance, extent.name()));
+    }
+
+    @Override
+    public List<int[]> findEqualExtents(Extent extent, Scalar tolerance) {
+        return pairs(evaluate(EQUAL_EXTENTS, tolerance, extent.name()));
+    }
+
+    @Override
+    public List<Integer> countRows(Scalar tolerance) {
+        return indexes(evaluate(ROW_COUNTS, tolerance, null));
+    }
+
+    private List<?> evaluate(String rule, Scalar tolerance, Object parameter) {
+        return (List<?>) driver.executeScript(CHUNK_RULES_SCRIPT, webElements, rule, tolerance.intValue(), parameter);
+    }
+
+    private static List<int[]> pairs(List<?> values) {
+        List<int[]> pairs = new ArrayList<>(values.size());
+        for (Object value : values) {
+            List<?> pair = (List<?>) value;
+            pairs.add(new int[]{intValue(pair.get(0)), intValue(pair.get(1))});
+        }
+        return pairs;
+    }
+
+    private static List<Integer> indexes(List<?> values) {
+        List<Integer> indexes = new ArrayList<>(values.size());
+        for (Object value : values) {
+            indexes.add(intValue(value));
+        }
+        return indexes;
+    }
+
+    private static int intValue(Object number) {
+        return ((Number) number).intValue();
+    }
+}
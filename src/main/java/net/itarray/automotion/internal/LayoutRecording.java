@@ -0,0 +1,156 @@
+package net.itarray.automotion.internal;
+
+import net.itarray.automotion.internal.geometry.Rectangle;
+import net.itarray.automotion.internal.geometry.Vector;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.WebElement;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static net.itarray.automotion.internal.geometry.Rectangle.ORIGIN_CORNER;
+
+/**
+ * A captured {@link PageLayout} together with the page properties it was captured at, stored as json.
+ */
+public class LayoutRecording {
+
+    private static final String RESOLUTION = "resolution";
+    private static final String ZOOM = "zoom";
+    private static final String PAGE_SIZE = "pageSize";
+    private static final String ELEMENTS = "elements";
+    private static final String PATH = "path";
+    private static final String PROPERTIES = "properties";
+    private static final String RECT = "rect";
+    private static final String CSS = "css";
+
+    private final Dimension resolution;
+    private final String zoom;
+    private final Dimension pageSize;
+    private final List<RecordedWebElement> elements;
+
+    public LayoutRecording(Dimension resolution, String zoom, Dimension pageSize, List<RecordedWebElement> elements) {
+        this.resolution = resolution;
+        this.zoom = zoom;
+        this.pageSize = pageSize;
+        this.elements = elements;
+    }
+
+    public Dimension getResolution() {
+        return resolution;
+    }
+
+    public String getZoom() {
+        return zoom;
+    }
+
+    public Dimension getPageSize() {
+        return pageSize;
+    }
+
+    public List<RecordedWebElement> getElements() {
+        return Collections.unmodifiableList(elements);
+    }
+
+    public static void write(File file, PageLayout layout, Dimension resolution, String zoom, Dimension pageSize) {
+        List<Map<String, Object>> elements = new ArrayList<>();
+        for (WebElement webElement : layout.getElements()) {
+            Rectangle rectangle = layout.getRectangle(webElement);
+            Vector size = ORIGIN_CORNER.extend(rectangle);
+            Map<String, Object> element = new LinkedHashMap<>();
+            element.put(PATH, layout.getPath(webElement));
+            element.put(PROPERTIES, new ArrayList<>(layout.getNameProperties(webElement)));
+            element.put(RECT, Arrays.asList(
+                    rectangle.getOrigin().getX().intValue(),
+                    rectangle.getOrigin().getY().intValue(),
+                    size.getX().intValue(),
+                    size.getY().intValue()));
+            element.put(CSS, new HashMap<>(layout.getCssValues(webElement)));
+            elements.add(element);
+        }
+        Map<String, Object> recording = new LinkedHashMap<>();
+        recording.put(RESOLUTION, format(resolution));
+        recording.put(ZOOM, zoom);
+        recording.put(PAGE_SIZE, format(pageSize));
+        recording.put(ELEMENTS, elements);
+
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            JSONValue.writeJSONString(recording, writer);
+        } catch (IOException ex) {
+            throw new RuntimeException("Cannot write layout recording: " + file, ex);
+        }
+    }
+
+    public static LayoutRecording read(File file) {
+        JSONObject recording;
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            recording = (JSONObject) new JSONParser().parse(reader);
+        } catch (IOException | ParseException ex) {
+            throw new RuntimeException("Cannot read layout recording: " + file, ex);
+        }
+        List<RecordedWebElement> elements = new ArrayList<>();
+        for (Object element : (JSONArray) recording.get(ELEMENTS)) {
+            elements.add(toElement((JSONObject) element));
+        }
+        return new LayoutRecording(
+                parse((String) recording.get(RESOLUTION)),
+                (String) recording.get(ZOOM),
+                parse((String) recording.get(PAGE_SIZE)),
+                elements);
+    }
+
+    private static RecordedWebElement toElement(JSONObject element) {
+        List<String> nameProperties = new ArrayList<>();
+        for (Object property : (JSONArray) element.get(PROPERTIES)) {
+            nameProperties.add((String) property);
+        }
+        JSONArray rect = (JSONArray) element.get(RECT);
+        Map<String, String> cssValues = new HashMap<>();
+        for (Object entry : ((JSONObject) element.get(CSS)).entrySet()) {
+            Map.Entry<?, ?> css = (Map.Entry<?, ?>) entry;
+            cssValues.put((String) css.getKey(), (String) css.getValue());
+        }
+        return new RecordedWebElement(
+                (String) element.get(PATH),
+                nameProperties,
+                new Point(intValue(rect.get(0)), intValue(rect.get(1))),
+                new Dimension(intValue(rect.get(2)), intValue(rect.get(3))),
+                cssValues);
+    }
+
+    private static int intValue(Object number) {
+        return ((Number) number).intValue();
+    }
+
+    private static String format(Dimension dimension) {
+        return String.format("%sx%s", dimension.getWidth(), dimension.getHeight());
+    }
+
+    private static Dimension parse(String widthXheight) {
+        String[] parts = widthXheight.split("x");
+        return new Dimension(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+    }
+}
@@ -0,0 +1,244 @@
+package net.itarray.automotion.internal;
+
+import net.itarray.automotion.internal.geometry.ConnectedIntervals;
+import net.itarray.automotion.internal.geometry.InferredGrid;
+import net.itarray.automotion.internal.geometry.PackedRectangles;
+import net.itarray.automotion.internal.geometry.Scalar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates chunk rules on the packed coordinates of the chunk. The tolerance is applied like the
+ * conditions of {@link UIElement} do.
+ * Given a pool, rules on large chunks split their work by element across it. Every element contributes
+ * to the result independently of the others, so results are the same as evaluating sequentially.
+ */
+public class PackedChunkRules implements ChunkRules {
+
+    private static final int PARALLEL_THRESHOLD = 512;
+
+    private final PackedRectangles rectangles;
+    private final ForkJoinPool pool;
+
+    public PackedChunkRules(PackedRectangles rectangles) {
+        this(rectangles, null);
+    }
+
+    public PackedChunkRules(PackedRectangles rectangles, ForkJoinPool pool) {
+        this.rectangles = rectangles;
+        this.pool = pool;
+    }
+
+    /**
+     * Sweeps along the axis on which the elements overlap less, so only pairs overlapping on that axis
+     * are compared. For every element the smallest overlapping successor is kept, which is the pair a
+     * scan in chunk order reports first.
+     */
+    @Override
+    public List<int[]> findOverlaps(Scalar tolerance) {
+        int t = tolerance.intValue();
+        int size = rectangles.size();
+        boolean alongX = coverage(true) <= coverage(false);
+        int[] order = IntStream.range(0, size).boxed()
+                .sorted(Comparator.comparingInt(i -> start(alongX, i)))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        AtomicIntegerArray firstOverlaps = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            firstOverlaps.set(i, Integer.MAX_VALUE);
+        }
+        run(() -> indexes().forEach(k -> {
+            int current = order[k];
+            int end = end(alongX, current) - t;
+            for (int m = k + 1; m < size && start(alongX, order[m]) < end; m++) {
+                int other = order[m];
+                if (overlap(current, other, t)) {
+                    firstOverlaps.accumulateAndGet(Math.min(current, other), Math.max(current, other), Math::min);
+                }
+            }
+        }));
+        List<int[]> overlaps = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (firstOverlaps.get(i) != Integer.MAX_VALUE) {
+                overlaps.add(new int[]{i, firstOverlaps.get(i)});
+            }
+        }
+        return overlaps;
+    }
+
+    private int start(boolean alongX, int index) {
+        return alongX ? rectangles.left(index) : rectangles.top(index);
+    }
+
+    private int end(boolean alongX, int index) {
+        return alongX ? rectangles.right(index) : rectangles.bottom(index);
+    }
+
+    /**
+     * How often the elements cover their common span on average along one axis.
+     */
+    private double coverage(boolean alongX) {
+        long extents = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < rectangles.size(); i++) {
+            extents += Math.max(0, end(alongX, i) - start(alongX, i));
+            min = Math.min(min, start(alongX, i));
+            max = Math.max(max, end(alongX, i));
+        }
+        return max > min ? (double) extents / ((long) max - min) : Double.MAX_VALUE;
+    }
+
+    private boolean overlap(int i, int j, int tolerance) {
+        return rectangles.left(i) < rectangles.right(j) - tolerance
+                && rectangles.left(j) < rectangles.right(i) - tolerance
+                && rectangles.top(i) < rectangles.bottom(j) - tolerance
+                && rectangles.top(j) < rectangles.bottom(i) - tolerance;
+    }
+
+    @Override
+    public List<Integer> findNotAligned(Edge edge, Scalar tolerance) {
+        int t = tolerance.intValue();
+        return collect(() -> indexes()
+                .filter(i -> i > 0 && Math.abs((long) edge(edge, i) - edge(edge, 0)) > t)
+                .boxed()
+                .collect(Collectors.toList()));
+    }
+
+    private int edge(Edge edge, int index) {
+        switch (edge) {
+            case LEFT:
+                return rectangles.left(index);
+            case TOP:
+                return rectangles.top(index);
+            case RIGHT:
+                return rectangles.right(index);
+            default:
+                return rectangles.bottom(index);
+        }
+    }
+
+    @Override
+    public List<Integer> findDifferentExtents(Extent extent, Scalar tolerance) {
+        long t = tolerance.intValue();
+        return collect(() -> indexes()
+                .filter(i -> i < rectangles.size() - 1 && differ(extent, i, i + 1, t))
+                .boxed()
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Extents are bucketed by the tolerance plus one, so equal extents are in the same or a neighbouring
+     * bucket and only those are compared.
+     */
+    @Override
+    public List<int[]> findEqualExtents(Extent extent, Scalar tolerance) {
+        long t = tolerance.intValue();
+        long cell = t + 1;
+        int rangeX = extent == Extent.HEIGHT ? 0 : 1;
+        int rangeY = extent == Extent.WIDTH ? 0 : 1;
+        long[] bucketX = new long[rectangles.size()];
+        long[] bucketY = new long[rectangles.size()];
+        Map<List<Long>, List<Integer>> buckets = new HashMap<>();
+        for (int i = 0; i < rectangles.size(); i++) {
+            bucketX[i] = rangeX * Math.floorDiv((long) rectangles.width(i), cell);
+            bucketY[i] = rangeY * Math.floorDiv((long) rectangles.height(i), cell);
+            buckets.computeIfAbsent(Arrays.asList(bucketX[i], bucketY[i]), key -> new ArrayList<>()).add(i);
+        }
+        return collect(() -> indexes().boxed().flatMap(i -> {
+            List<Integer> equalToI = new ArrayList<>();
+            for (int x = -rangeX; x <= rangeX; x++) {
+                for (int y = -rangeY; y <= rangeY; y++) {
+                    for (int j : buckets.getOrDefault(Arrays.asList(bucketX[i] + x, bucketY[i] + y), Collections.<Integer>emptyList())) {
+                        if (j > i && !differ(extent, i, j, t)) {
+                            equalToI.add(j);
+                        }
+                    }
+                }
+            }
+            Collections.sort(equalToI);
+            return equalToI.stream().map(j -> new int[]{i, j});
+        }).collect(Collectors.toList()));
+    }
+
+    private boolean differ(Extent extent, int i, int j, long tolerance) {
+        long dx = (long) rectangles.width(i) - rectangles.width(j);
+        long dy = (long) rectangles.height(i) - rectangles.height(j);
+        switch (extent) {
+            case WIDTH:
+                return Math.abs(dx) > tolerance;
+            case HEIGHT:
+                return Math.abs(dy) > tolerance;
+            default:
+                return dx * dx + dy * dy > tolerance * tolerance;
+        }
+    }
+
+    @Override
+    public List<Integer> countRows(Scalar tolerance) {
+        return new InferredGrid(rectangles, tolerance).getRowSizes();
+    }
+
+    /**
+     * The elements whose edges do not coincide with the edges of the column and row they are in.
+     */
+    public List<Integer> findMisplacedCells() {
+        int size = rectangles.size();
+        int[] lefts = new int[size];
+        int[] rights = new int[size];
+        int[] tops = new int[size];
+        int[] bottoms = new int[size];
+        for (int i = 0; i < size; i++) {
+            lefts[i] = rectangles.left(i);
+            rights[i] = rectangles.right(i);
+            tops[i] = rectangles.top(i);
+            bottoms[i] = rectangles.bottom(i);
+        }
+        ConnectedIntervals columns = new ConnectedIntervals(lefts, rights);
+        ConnectedIntervals rows = new ConnectedIntervals(tops, bottoms);
+        return collect(() -> indexes().filter(i -> {
+            int column = columns.indexOf(lefts[i], rights[i]);
+            int row = rows.indexOf(tops[i], bottoms[i]);
+            return !(columns.begin(column) == lefts[i] && columns.end(column) == rights[i]
+                    && rows.begin(row) == tops[i] && rows.end(row) == bottoms[i]);
+        }).boxed().collect(Collectors.toList()));
+    }
+
+    private boolean isParallel() {
+        return pool != null && rectangles.size() >= PARALLEL_THRESHOLD;
+    }
+
+    /**
+     * The indexes of all elements; parallel if the chunk is large enough to be split across the pool.
+     */
+    private IntStream indexes() {
+        IntStream indexes = IntStream.range(0, rectangles.size());
+        return isParallel() ? indexes.parallel() : indexes;
+    }
+
+    /**
+     * Parallel streams run in the pool they are started from, so work on parallel indexes is started
+     * in the pool. Streams collect in element order, whatever the order of evaluation.
+     */
+    private <T> T collect(Supplier<T> work) {
+        return isParallel() ? pool.submit(work::get).join() : work.get();
+    }
+
+    private void run(Runnable work) {
+        collect(() -> {
+            work.run();
+            return null;
+        });
+    }
+}
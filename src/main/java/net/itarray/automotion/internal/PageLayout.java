@@ -0,0 +1,76 @@
+package net.itarray.automotion.internal;
+
+import net.itarray.automotion.internal.geometry.Rectangle;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Page coordinates and computed styles of a part of the page, captured at once. Lookups of
+ * elements or properties that were not captured answer null.
+ */
+public class PageLayout {
+
+    private final Map<WebElement, Integer> indexes = new HashMap<>();
+    private final List<WebElement> elements = new ArrayList<>();
+    private final List<String> paths = new ArrayList<>();
+    private final List<Rectangle> rectangles = new ArrayList<>();
+    private final List<List<String>> nameProperties = new ArrayList<>();
+    private final List<Map<String, String>> styles = new ArrayList<>();
+
+    public void add(WebElement webElement, String path, Rectangle rectangle, List<String> nameProperties, Map<String, String> cssValues) {
+        indexes.put(webElement, elements.size());
+        elements.add(webElement);
+        paths.add(path);
+        rectangles.add(rectangle);
+        this.nameProperties.add(nameProperties);
+        styles.add(cssValues);
+    }
+
+    public boolean contains(WebElement webElement) {
+        return indexes.containsKey(webElement);
+    }
+
+    public List<WebElement> getElements() {
+        return Collections.unmodifiableList(elements);
+    }
+
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * A css selector of nth-child steps from the document root to the element.
+     */
+    public String getPath(WebElement webElement) {
+        Integer index = indexes.get(webElement);
+        return index == null ? null : paths.get(index);
+    }
+
+    /**
+     * Tag name, id, class and text of the element. Only elements without child elements have a text.
+     */
+    public List<String> getNameProperties(WebElement webElement) {
+        Integer index = indexes.get(webElement);
+        return index == null ? null : nameProperties.get(index);
+    }
+
+    public Rectangle getRectangle(WebElement webElement) {
+        Integer index = indexes.get(webElement);
+        return index == null ? null : rectangles.get(index);
+    }
+
+    public String getCssValue(WebElement webElement, String propertyName) {
+        Integer index = indexes.get(webElement);
+        return index == null ? null : styles.get(index).get(propertyName);
+    }
+
+    public Map<String, String> getCssValues(WebElement webElement) {
+        Integer index = indexes.get(webElement);
+        return index == null ? null : Collections.unmodifiableMap(styles.get(index));
+    }
+}
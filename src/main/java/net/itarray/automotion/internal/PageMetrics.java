@@ -0,0 +1,48 @@
+package net.itarray.automotion.internal;
+
+import org.openqa.selenium.Dimension;
+
+/**
+ * Size, zoom, scroll offsets and device pixel ratio of the page, as retrieved together by
+ * {@link DriverFacade#retrievePageMetrics()}.
+ */
+public class PageMetrics {
+
+    private final Dimension pageSize;
+    private final String zoom;
+    private final long scrollX;
+    private final long scrollY;
+    private final double devicePixelRatio;
+
+    public PageMetrics(Dimension pageSize, String zoom, long scrollX, long scrollY, double devicePixelRatio) {
+        this.pageSize = pageSize;
+        this.zoom = zoom;
+        this.scrollX = scrollX;
+        this.scrollY = scrollY;
+        this.devicePixelRatio = devicePixelRatio;
+    }
+
+    public Dimension getPageSize() {
+        return pageSize;
+    }
+
+    public String getZoom() {
+        return zoom;
+    }
+
+    public int getZoomPercentage() {
+        return Integer.parseInt(zoom.replace("%", ""));
+    }
+
+    public long getScrollX() {
+        return scrollX;
+    }
+
+    public long getScrollY() {
+        return scrollY;
+    }
+
+    public double getDevicePixelRatio() {
+        return devicePixelRatio;
+    }
+}
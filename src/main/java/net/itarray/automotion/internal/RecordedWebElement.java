@@ -0,0 +1,156 @@
+package net.itarray.automotion.internal;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebElement;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An element of a {@link LayoutRecording}. It answers geometry, name properties and computed styles as
+ * recorded and cannot be interacted with.
+ */
+public class RecordedWebElement implements WebElement {
+
+    private final String path;
+    private final String tagName;
+    private final String id;
+    private final String className;
+    private final String text;
+    private final Point location;
+    private final Dimension size;
+    private final Map<String, String> cssValues;
+
+    public RecordedWebElement(String path, List<String> nameProperties, Point location, Dimension size, Map<String, String> cssValues) {
+        this.path = path;
+        this.tagName = nameProperties.get(0);
+        this.id = nameProperties.get(1);
+        this.className = nameProperties.get(2);
+        this.text = nameProperties.get(3);
+        this.location = location;
+        this.size = size;
+        this.cssValues = cssValues;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public List<String> getNameProperties() {
+        return Arrays.asList(tagName, id, className, text);
+    }
+
+    public Map<String, String> getCssValues() {
+        return cssValues;
+    }
+
+    public boolean hasClass(String name) {
+        return className != null && Arrays.asList(className.trim().split("\\s+")).contains(name);
+    }
+
+    @Override
+    public String getTagName() {
+        return tagName;
+    }
+
+    @Override
+    public String getAttribute(String name) {
+        switch (name) {
+            case "id":
+                return id;
+            case "class":
+                return className;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public Point getLocation() {
+        return location;
+    }
+
+    @Override
+    public Dimension getSize() {
+        return size;
+    }
+
+    @Override
+    public Rectangle getRect() {
+        return new Rectangle(location, size);
+    }
+
+    @Override
+    public String getCssValue(String propertyName) {
+        return cssValues.getOrDefault(propertyName, "");
+    }
+
+    @Override
+    public boolean isDisplayed() {
+        return size.getWidth() > 0 && size.getHeight() > 0;
+    }
+
+    @Override
+    public boolean isSelected() {
+        return false;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void click() {
+        throw notSupported();
+    }
+
+    @Override
+    public void submit() {
+        throw notSupported();
+    }
+
+    @Override
+    public void sendKeys(CharSequence... keysToSend) {
+        throw notSupported();
+    }
+
+    @Override
+    public void clear() {
+        throw notSupported();
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        throw notSupported();
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        throw notSupported();
+    }
+
+    @Override
+    public <X> X getScreenshotAs(OutputType<X> target) {
+        throw notSupported();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    private UnsupportedOperationException notSupported() {
+        return new UnsupportedOperationException(String.format("recorded element %s cannot be interacted with", path));
+    }
+}
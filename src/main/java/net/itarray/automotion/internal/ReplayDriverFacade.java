@@ -0,0 +1,235 @@
+package net.itarray.automotion.internal;
+
+import net.itarray.automotion.internal.geometry.PackedRectangles;
+import net.itarray.automotion.internal.geometry.Rectangle;
+import net.itarray.automotion.internal.geometry.Vector;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Replays a {@link LayoutRecording} without a browser. Elements are looked up in the recording, and
+ * validations of them answer what the page answered when it was recorded. Screenshots are blank.
+ * Everything that needs the browser itself, like scripts or locators other than id, class name, tag
+ * name and recorded paths, fails with an {@link UnsupportedOperationException}.
+ */
+public class ReplayDriverFacade extends DriverFacade {
+
+    private final LayoutRecording recording;
+
+    public ReplayDriverFacade(LayoutRecording recording) {
+        super(null);
+        this.recording = recording;
+    }
+
+    public static ReplayDriverFacade replay(File file) {
+        return new ReplayDriverFacade(LayoutRecording.read(file));
+    }
+
+    public RecordedWebElement findElementByPath(String path) {
+        return single(find(e -> path.equals(e.getPath())), "path " + path);
+    }
+
+    public RecordedWebElement findElementById(String id) {
+        return single(find(e -> id.equals(e.getAttribute("id"))), "id " + id);
+    }
+
+    public List<RecordedWebElement> findElementsByClassName(String className) {
+        return find(e -> e.hasClass(className));
+    }
+
+    public List<RecordedWebElement> findElementsByTagName(String tagName) {
+        return find(e -> tagName.equalsIgnoreCase(e.getTagName()));
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        List<WebElement> found = findElements(by);
+        if (found.isEmpty()) {
+            throw new NoSuchElementException("no recorded element located " + by);
+        }
+        return found.get(0);
+    }
+
+    /**
+     * Only locators by id, class name, tag name and css selectors that are recorded paths can be replayed.
+     */
+    @Override
+    public List<WebElement> findElements(By by) {
+        String locator = by.toString();
+        String value = locator.substring(locator.indexOf(':') + 1).trim();
+        List<RecordedWebElement> found;
+        if (by instanceof By.ById) {
+            found = find(e -> value.equals(e.getAttribute("id")));
+        } else if (by instanceof By.ByClassName) {
+            found = findElementsByClassName(value);
+        } else if (by instanceof By.ByTagName) {
+            found = findElementsByTagName(value);
+        } else if (by instanceof By.ByCssSelector) {
+            found = find(e -> value.equals(e.getPath()));
+        } else {
+            throw notReplayable("locating elements " + by);
+        }
+        return new ArrayList<>(found);
+    }
+
+    private List<RecordedWebElement> find(Predicate<RecordedWebElement> predicate) {
+        return recording.getElements().stream().filter(predicate).collect(Collectors.toList());
+    }
+
+    private static RecordedWebElement single(List<RecordedWebElement> found, String description) {
+        if (found.isEmpty()) {
+            throw new NoSuchElementException("no recorded element with " + description);
+        }
+        return found.get(0);
+    }
+
+    @Override
+    public WebDriver getDriver() {
+        throw notReplayable("accessing the web driver");
+    }
+
+    @Override
+    public File takeScreenshot() {
+        try {
+            File file = File.createTempFile("screenshot", ".png");
+            takeScreenshot(file, 0, 0, null);
+            return file;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Vector takeScreenshot(File file, int headerCutPx, int footerCutPx, ArtifactWriter artifacts) {
+        file.getParentFile().mkdirs();
+        Dimension pageSize = recording.getPageSize();
+        BufferedImage image = new BufferedImage(pageSize.getWidth(), pageSize.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, pageSize.getWidth(), pageSize.getHeight());
+        graphics.dispose();
+        write(file, artifacts, f -> ImageIO.write(image, "PNG", f));
+        return new Vector(pageSize.getWidth(), pageSize.getHeight());
+    }
+
+    @Override
+    public boolean isChromeDriver() {
+        return false;
+    }
+
+    @Override
+    public boolean isFirefoxDriver() {
+        return false;
+    }
+
+    @Override
+    public Object executeScript(String script) {
+        throw notReplayable("executing scripts");
+    }
+
+    @Override
+    public Object executeScript(String script, Object... args) {
+        throw notReplayable("executing scripts");
+    }
+
+    @Override
+    public boolean isBatchedCaptureSupported() {
+        return false;
+    }
+
+    @Override
+    public PackedRectangles retrieveRectangles(List<WebElement> webElements, List<Integer> staleIndexes) {
+        PackedRectangles rectangles = new PackedRectangles(webElements.size());
+        for (WebElement webElement : webElements) {
+            rectangles.add(recorded(webElement));
+        }
+        return rectangles;
+    }
+
+    @Override
+    public List<List<String>> retrieveNameProperties(List<WebElement> webElements) {
+        return webElements.stream().map(e -> recorded(e).getNameProperties()).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<List<String>> retrieveCssValues(List<WebElement> webElements, List<String> propertyNames) {
+        List<List<String>> result = new ArrayList<>(webElements.size());
+        for (WebElement webElement : webElements) {
+            result.add(propertyNames.stream().map(recorded(webElement)::getCssValue).collect(Collectors.toList()));
+        }
+        return result;
+    }
+
+    /**
+     * The recorded elements at the recorded path and below it; css selectors other than recorded paths
+     * cannot be replayed.
+     */
+    @Override
+    public PageLayout retrievePageLayout(String cssSelector, List<String> cssPropertyNames) {
+        PageLayout layout = new PageLayout();
+        for (RecordedWebElement element : find(e -> e.getPath().equals(cssSelector) || e.getPath().startsWith(cssSelector + ">"))) {
+            Map<String, String> cssValues = new HashMap<>(element.getCssValues());
+            cssValues.keySet().retainAll(cssPropertyNames);
+            int x = element.getLocation().getX();
+            int y = element.getLocation().getY();
+            Rectangle rectangle = new Rectangle(x, y, x + element.getSize().getWidth(), y + element.getSize().getHeight());
+            layout.add(element, element.getPath(), rectangle, element.getNameProperties(), cssValues);
+        }
+        return layout;
+    }
+
+    private RecordedWebElement recorded(WebElement webElement) {
+        if (!(webElement instanceof RecordedWebElement)) {
+            throw notReplayable("retrieving elements that are not recorded");
+        }
+        return (RecordedWebElement) webElement;
+    }
+
+    private static UnsupportedOperationException notReplayable(String what) {
+        return new UnsupportedOperationException(what + " is not possible in a replayed recording - it has no browser");
+    }
+
+    @Override
+    public String getZoom() {
+        return recording.getZoom();
+    }
+
+    @Override
+    public void setZoom(int percentage) {
+        if (!getZoom().equals(percentage + "%")) {
+            throw new IllegalArgumentException(String.format("zoom %s%% was not recorded - recording is at %s", percentage, getZoom()));
+        }
+    }
+
+    @Override
+    public PageMetrics retrievePageMetrics() {
+        return new PageMetrics(recording.getPageSize(), recording.getZoom(), 0, 0, 1);
+    }
+
+    @Override
+    public Dimension getResolution() {
+        return recording.getResolution();
+    }
+
+    @Override
+    public void setResolution(Dimension resolution) {
+        if (!getResolution().equals(resolution)) {
+            throw new IllegalArgumentException(String.format("resolution %s was not recorded - recording is at %s", resolution, getResolution()));
+        }
+    }
+}
@@ -1,8 +1,8 @@
     package net.itarray.automotion.internal;
 
-import net.itarray.automotion.internal.geometry.ConnectedIntervals;
-import net.itarray.automotion.internal.geometry.Interval;
-import net.itarray.automotion.internal.geometry.Scalar;
+import net.itarray.automotion.internal.ChunkRules.Edge;
+import net.itarray.automotion.internal.ChunkRules.Extent;
+import net.itarray.automotion.internal.geometry.PackedRectangles;
 import net.itarray.automotion.internal.geometry.Vector;
 import net.itarray.automotion.internal.properties.Context;
 import net.itarray.automotion.validation.ChunkUIElementValidator;
@@ -13,18 +13,23 @@ import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebElement;
 import util.validator.ResponsiveUIValidator;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import static net.itarray.automotion.internal.UIElement.*;
 import static net.itarray.automotion.internal.geometry.Interval.interval;
 
 public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase implements ChunkUIElementValidator {
 
-    private final List<UIElement> rootElements;
+    private final List<WebElement> webElements;
+    private final boolean inBrowser;
+    private PackedRectangles rectangles;
+    private List<UIElement> rootElements;
 
     public ResponsiveUIChunkValidatorBase(UISnapshot snapshot, List<WebElement> webElements, boolean allowEmpty) {
         super(snapshot);
@@ -40,7 +45,11 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
                 } catch (Exception e) {}
             }
         }
-        rootElements = asElements(webElements);
+        this.webElements = webElements;
+        this.inBrowser = getReport().isEvaluatingChunkRulesInBrowser() && getDriver().isBatchedCaptureSupported() && !webElements.isEmpty();
+        if (!inBrowser) {
+            rectangles = snapshot.getElements().rectanglesOf(webElements);
+        }
         doSnapshot();
     }
 
@@ -81,7 +90,7 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase alignedAsGrid(int horizontalGridSize) {
-        validateGridAlignment(rootElements, horizontalGridSize, 0);
+        validateGridAlignment(horizontalGridSize, 0);
         return this;
     }
 
@@ -94,28 +103,35 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase alignedAsGrid(int horizontalGridSize, int verticalGridSize) {
-        validateGridAlignment(rootElements, horizontalGridSize, verticalGridSize);
+        validateGridAlignment(horizontalGridSize, verticalGridSize);
         return this;
     }
 
     @Override
     public ChunkUIElementValidator areAlignedAsGridCells() {
-        validateAlignedAsGridCells(rootElements);
+        validateAlignedAsGridCells();
         return this;
     }
 
     // todo: tolerance
+    private void validateAlignedAsGridCells() {
+        for (int ignored : new PackedChunkRules(getRectangles(), getReport().getChunkRulesPool()).findMisplacedCells()) {
+            getContext().add(String.format("banane"));
+        }
+    }
+
+    /**
+     * @deprecated use {@link #areAlignedAsGridCells()}, which checks the already packed rectangles of
+     * the validated elements
+     */
+    @Deprecated
     public void validateAlignedAsGridCells(List<UIElement> rootElements) {
-        ConnectedIntervals columns = new ConnectedIntervals(rootElements.stream().map(e -> e.getXInterval()).collect(Collectors.toList()));
-        ConnectedIntervals rows = new ConnectedIntervals(rootElements.stream().map(e -> e.getYInterval()).collect(Collectors.toList()));
+        PackedRectangles rectangles = new PackedRectangles(rootElements.size());
         for (UIElement element : rootElements) {
-            Interval xInterval = element.getXInterval();
-            Interval xCell = columns.get(columns.indexOf(xInterval));
-            Interval yInterval = element.getYInterval();
-            Interval yCell = rows.get(rows.indexOf(yInterval));
-            if (!(xInterval.equals(xCell) && yInterval.equals(yCell))) {
-                getContext().add(String.format("banane"));
-            }
+            rectangles.add(element.getRectangle());
+        }
+        for (int ignored : new PackedChunkRules(rectangles, getReport().getChunkRulesPool()).findMisplacedCells()) {
+            getContext().add(String.format("banane"));
         }
     }
 
@@ -126,7 +142,7 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase doNotOverlap() {
-        validateElementsAreNotOverlapped(rootElements);
+        validateElementsAreNotOverlapped();
         return this;
     }
 
@@ -137,7 +153,7 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase haveEqualSize() {
-        validateSameSize(asNumberedList(rootElements));
+        validateSameExtent(Extent.SIZE, "size");
         return this;
     }
 
@@ -148,7 +164,7 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase haveEqualWidth() {
-        validateSameWidth(asNumberedList(rootElements));
+        validateSameExtent(Extent.WIDTH, "width");
         return this;
     }
 
@@ -159,7 +175,7 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase haveEqualHeight() {
-        validateSameHeight(asNumberedList(rootElements));
+        validateSameExtent(Extent.HEIGHT, "height");
         return this;
     }
 
@@ -170,7 +186,7 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase haveDifferentSizes() {
-        validateHaveDifferentSizes(rootElements);
+        validateDifferentExtents(Extent.SIZE, "size");
         return this;
     }
 
@@ -181,7 +197,7 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase haveDifferentWidths() {
-        validateHaveDifferentWidths(rootElements);
+        validateDifferentExtents(Extent.WIDTH, "width");
         return this;
     }
 
@@ -192,7 +208,7 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase haveDifferentHeights() {
-        validateNotSameHeight(rootElements);
+        validateDifferentExtents(Extent.HEIGHT, "height");
         return this;
     }
 
@@ -203,7 +219,7 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase areRightAligned() {
-        validateRightAlignedWithChunk(asNumberedList(rootElements));
+        validateAlignedWithChunk(Edge.RIGHT, UIElement::validateRightAlignedWith, UIElement::getCorner, true);
         return this;
     }
 
@@ -214,7 +230,7 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase areLeftAligned() {
-        validateLeftAlignedWithChunk(asNumberedList(rootElements));
+        validateAlignedWithChunk(Edge.LEFT, UIElement::validateLeftAlignedWith, UIElement::getOrigin, true);
         return this;
     }
 
@@ -225,7 +241,7 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase areTopAligned() {
-        validateTopAlignedWithChunk(asNumberedList(rootElements));
+        validateAlignedWithChunk(Edge.TOP, UIElement::validateTopAlignedWith, UIElement::getOrigin, false);
         return this;
     }
 
@@ -236,7 +252,7 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase areBottomAligned() {
-        validateBottomAlignedWithChunk(asNumberedList(rootElements));
+        validateAlignedWithChunk(Edge.BOTTOM, UIElement::validateBottomAlignedWith, UIElement::getCorner, false);
         return this;
     }
 
@@ -247,7 +263,7 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase areCenteredOnPageVertically() {
-        validateCenteredOnPageVertically(rootElements);
+        validateCenteredOnPageVertically(getRootElements());
         return this;
     }
 
@@ -258,7 +274,7 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase areCenteredOnPageHorizontally() {
-        validateCenteredOnPageHorizontally(rootElements);
+        validateCenteredOnPageHorizontally(getRootElements());
         return this;
     }
 
@@ -271,32 +287,62 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
      */
     @Override
     public ResponsiveUIChunkValidatorBase areInsideOf(WebElement containerElement, String readableContainerName) {
-        validateInsideOfContainer(asElement(containerElement, readableContainerName), rootElements);
+        validateInsideOfContainer(asElement(containerElement, readableContainerName), getRootElements());
         return this;
     }
 
-    private void validateElementsAreNotOverlapped(List<UIElement> elements) {
-        Context context = getContext();
-        for (int firstIndex = 0; firstIndex < elements.size(); firstIndex++) {
-            UIElement first = elements.get(firstIndex);
-            for (int secondIndex = firstIndex+1; secondIndex < elements.size(); secondIndex++) {
-                UIElement second = elements.get(secondIndex);
-                if (!first.validateNotOverlappingWithElement(second, context)) {
-                    break;
-                }
-            }
+    private List<UIElement> getRootElements() {
+        if (rootElements == null) {
+            rootElements = inBrowser ? asElements(webElements) : snapshot.getElements().asElements(webElements, rectangles);
         }
+        return rootElements;
     }
 
-    // todo: tolerance
-    private void validateGridAlignment(List<UIElement> elements, int columns, int rows) {
-        SortedMap<Scalar, Integer> map = new TreeMap<>();
-        for (UIElement element : elements) {
-            int oldCount = map.getOrDefault(element.getY(), 0);
-            map.put(element.getY(), oldCount + 1);
+    private PackedRectangles getRectangles() {
+        if (rectangles == null) {
+            rectangles = snapshot.getElements().rectanglesOf(webElements);
+        }
+        return rectangles;
+    }
+
+    private ChunkRules rules() {
+        return inBrowser ? new InBrowserChunkRules(getDriver(), webElements) : new PackedChunkRules(rectangles, getReport().getChunkRulesPool());
+    }
+
+    /**
+     * The elements at the given indexes, their geometry retrieved in one batch.
+     */
+    private Map<Integer, UIElement> elementsAt(Collection<Integer> indexes) {
+        List<Integer> distinct = indexes.stream().distinct().collect(Collectors.toList());
+        List<WebElement> found = distinct.stream().map(webElements::get).collect(Collectors.toList());
+        List<UIElement> elements = inBrowser
+                ? asElements(found)
+                : snapshot.getElements().asElements(found, distinct.stream().map(rectangles::get).collect(Collectors.toList()));
+        Map<Integer, UIElement> elementsByIndex = new HashMap<>();
+        for (int i = 0; i < distinct.size(); i++) {
+            elementsByIndex.put(distinct.get(i), elements.get(i));
         }
+        return elementsByIndex;
+    }
 
-        int mapSize = map.size();
+    private void validateElementsAreNotOverlapped() {
+        Context context = getContext();
+        List<int[]> overlaps = rules().findOverlaps(context.getTolerance());
+        Map<Integer, UIElement> elements = elementsAt(overlaps.stream().flatMap(pair -> Stream.of(pair[0], pair[1])).collect(Collectors.toList()));
+        for (int[] pair : overlaps) {
+            elements.get(pair[0]).validateNotOverlappingWithElement(elements.get(pair[1]), context);
+        }
+    }
+
+    private void validateGridAlignment(int columns, int rows) {
+        validateGridAlignment(rules().countRows(getContext().getTolerance()), columns, rows);
+    }
+
+    /**
+     * @param rowCounts the number of elements per row, ordered from top to bottom
+     */
+    private void validateGridAlignment(Collection<Integer> rowCounts, int columns, int rows) {
+        int mapSize = rowCounts.size();
         if (rows > 0) {
             if (mapSize != rows) {
                 getContext().add(String.format("Elements in a grid are not aligned properly. Looks like grid has wrong amount of rows. Expected is %d. Actual is %d", rows, mapSize));
@@ -306,9 +352,8 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
         if (columns > 0) {
             int errorLastLine = 0;
             int rowCount = 1;
-            for (Map.Entry<Scalar, Integer> entry : map.entrySet()) {
+            for (int actualInARow : rowCounts) {
                 if (rowCount <= mapSize) {
-                    int actualInARow = entry.getValue();
                     if (actualInARow != columns) {
                         errorLastLine++;
                         if (errorLastLine > 1 || actualInARow > columns) {
@@ -321,155 +366,70 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
         }
     }
 
-    private void validateRightAlignedWithChunk(List<UIElement> elements) {
-        Context context = getContext();
-        if (!elements.isEmpty()) {
-            int oldErrorsSize = context.errorCount();
-            int pickedIndex = 0;
-            UIElement element = elements.get(pickedIndex);
-            for (int i = 0; i < elements.size(); i++) {
-                if (i != pickedIndex) {
-                    UIElement elementToCompare = elements.get(i);
-                    element.validateRightAlignedWith(elementToCompare, context);
-                }
-            }
-            if (context.errorCount() != oldErrorsSize) {
-                Vector onLine = elements.get(pickedIndex).getCorner();
-                context.drawVerticalLine(onLine);
-            }
-        }
-    }
-
-    private void validateLeftAlignedWithChunk(List<UIElement> elements) {
-        Context context = getContext();
-        if (!elements.isEmpty()) {
-            int oldErrorsSize = context.errorCount();
-            int pickedIndex = 0;
-            UIElement element = elements.get(pickedIndex);
-            for (int i = 0; i < elements.size(); i++) {
-                UIElement elementToCompare = elements.get(i);
-                element.validateLeftAlignedWith(elementToCompare, context);
-            }
-            if (context.errorCount() != oldErrorsSize) {
-                context.drawVerticalLine(elements.get(pickedIndex).getOrigin());
-            }
-        }
-    }
-
-    private void validateTopAlignedWithChunk(List<UIElement> elements) {
-        Context context = getContext();
-        if (!elements.isEmpty()) {
-            int oldErrorsSize = context.errorCount();
-            int pickedIndex = 0;
-            UIElement element = elements.get(pickedIndex);
-            for (int i = 0; i < elements.size(); i++) {
-                UIElement elementToCompare = elements.get(i);
-                element.validateTopAlignedWith(elementToCompare, context);
-            }
-            if (context.errorCount() != oldErrorsSize) {
-                context.drawHorizontalLine(elements.get(pickedIndex).getOrigin());
-            }
-        }
-    }
-
-    private void validateBottomAlignedWithChunk(List<UIElement> elements) {
+    /**
+     * The first element is compared with every element whose edge differs from its own. If any of them
+     * is reported, a line is drawn through the edge of the first element.
+     */
+    private void validateAlignedWithChunk(Edge edge, Alignment alignment, Function<UIElement, Vector> onLine, boolean vertical) {
         Context context = getContext();
-        if (!elements.isEmpty()) {
+        List<Integer> notAligned = rules().findNotAligned(edge, context.getTolerance());
+        if (!notAligned.isEmpty()) {
             int oldErrorsSize = context.errorCount();
-            int pickedIndex = 0;
-            UIElement element = elements.get(pickedIndex);
-            for (int i = 0; i < elements.size(); i++) {
-                UIElement elementToCompare = elements.get(i);
-                element.validateBottomAlignedWith(elementToCompare, context);
+            List<Integer> indexes = new ArrayList<>(notAligned);
+            indexes.add(0);
+            Map<Integer, UIElement> elements = elementsAt(indexes);
+            UIElement element = elements.get(0).numbered(1);
+            for (int index : notAligned) {
+                alignment.validate(element, elements.get(index).numbered(index + 1), context);
             }
             if (context.errorCount() != oldErrorsSize) {
-                context.drawHorizontalLine(elements.get(pickedIndex).getCorner());
+                if (vertical) {
+                    context.drawVerticalLine(onLine.apply(element));
+                } else {
+                    context.drawHorizontalLine(onLine.apply(element));
+                }
             }
         }
     }
 
-    private void validateSameWidth(List<UIElement> elements) {
+    private void validateSameExtent(Extent extent, String extentName) {
         Context context = getContext();
-        for (int i = 0; i < elements.size() - 1; i++) {
-            UIElement element = elements.get(i);
-            UIElement elementToCompare = elements.get(i + 1);
-            if (!element.hasSameWidthAs(elementToCompare, context)) {
-                context.add(String.format("Element %s has different width than element %s.", element.getQuotedName(), elementToCompare.getQuotedName()));
+        List<Integer> different = rules().findDifferentExtents(extent, context.getTolerance());
+        Map<Integer, UIElement> elements = elementsAt(different.stream().flatMap(i -> Stream.of(i, i + 1)).collect(Collectors.toList()));
+        for (int index : different) {
+            UIElement element = elements.get(index).numbered(index + 1);
+            UIElement elementToCompare = elements.get(index + 1).numbered(index + 2);
+            if (!hasSameExtent(extent, element, elementToCompare, context)) {
+                context.add(String.format("Element %s has different %s than element %s.", element.getQuotedName(), extentName, elementToCompare.getQuotedName()));
                 context.draw(element);
                 context.draw(elementToCompare);
             }
         }
     }
 
-    private void validateSameHeight(List<UIElement> elements) {
-        Context context = getContext();
-        for (int i = 0; i < elements.size() - 1; i++) {
-            UIElement element = elements.get(i);
-            UIElement elementToCompare = elements.get(i + 1);
-            if (!element.hasSameHeightAs(elementToCompare, context)) {
-                context.add(String.format("Element %s has different height than element %s.", element.getQuotedName(), elementToCompare.getQuotedName()));
-                context.draw(element);
-                context.draw(elementToCompare);
-            }
+    private static boolean hasSameExtent(Extent extent, UIElement element, UIElement elementToCompare, Context context) {
+        switch (extent) {
+            case WIDTH:
+                return element.hasSameWidthAs(elementToCompare, context);
+            case HEIGHT:
+                return element.hasSameHeightAs(elementToCompare, context);
+            default:
+                return element.hasSameSizeAs(elementToCompare, context);
         }
     }
 
-    private void validateSameSize(List<UIElement> elements) {
+    private void validateDifferentExtents(Extent extent, String extentName) {
         Context context = getContext();
-        for (int i = 0; i < elements.size() - 1; i++) {
-            UIElement element = elements.get(i);
-            UIElement elementToCompare = elements.get(i + 1);
-            if (!element.hasSameSizeAs(elementToCompare, context)) {
-                context.add(String.format("Element %s has different size than element %s.", element.getQuotedName(), elementToCompare.getQuotedName()));
+        List<int[]> equal = rules().findEqualExtents(extent, context.getTolerance());
+        Map<Integer, UIElement> elements = elementsAt(equal.stream().flatMap(pair -> Stream.of(pair[0], pair[1])).collect(Collectors.toList()));
+        for (int[] pair : equal) {
+            UIElement element = elements.get(pair[0]);
+            UIElement elementToCompare = elements.get(pair[1]);
+            if (hasSameExtent(extent, element, elementToCompare, context)) {
+                context.add(String.format("Element %s has same %s than element %s.", element.getQuotedName(), extentName, elementToCompare.getQuotedName()));
                 context.draw(element);
                 context.draw(elementToCompare);
             }
-
-        }
-    }
-
-    private void validateHaveDifferentSizes(List<UIElement> elements) {
-        Context context = getContext();
-        for (int firstIndex = 0; firstIndex < elements.size(); firstIndex++) {
-            UIElement element = elements.get(firstIndex);
-            for (int secondIndex = firstIndex+1; secondIndex < elements.size(); secondIndex++) {
-                UIElement elementToCompare = elements.get(secondIndex);
-                if (element.hasSameSizeAs(elementToCompare, context)) {
-                    context.add(String.format("Element %s has same size than element %s.", element.getQuotedName(), elementToCompare.getQuotedName()));
-                    context.draw(element);
-                    context.draw(elementToCompare);
-                }
-            }
-        }
-    }
-
-    private void validateHaveDifferentWidths(List<UIElement> elements) {
-        Context context = getContext();
-        for (int firstIndex = 0; firstIndex < elements.size(); firstIndex++) {
-            UIElement element = elements.get(firstIndex);
-            for (int secondIndex = firstIndex+1; secondIndex < elements.size(); secondIndex++) {
-                UIElement elementToCompare = elements.get(secondIndex);
-                if (element.hasSameWidthAs(elementToCompare, context)) {
-                    context.add(String.format("Element %s has same width than element %s.", element.getQuotedName(), elementToCompare.getQuotedName()));
-                    context.draw(element);
-                    context.draw(elementToCompare);
-                }
-            }
-        }
-    }
-
-    private void validateNotSameHeight(List<UIElement> elements) {
-        Context context = getContext();
-        for (int firstIndex = 0; firstIndex < elements.size(); firstIndex++) {
-            UIElement element = elements.get(firstIndex);
-            for (int secondIndex = firstIndex+1; secondIndex < elements.size(); secondIndex++) {
-                UIElement elementToCompare = elements.get(secondIndex);
-                if (element.hasSameHeightAs(elementToCompare, context)) {
-                    context.add(String.format("Element %s has same height than element %s.", element.getQuotedName(), elementToCompare.getQuotedName()));
-                    context.draw(element);
-                    context.draw(elementToCompare);
-                }
-            }
         }
     }
 
@@ -502,8 +462,12 @@ public class ResponsiveUIChunkValidatorBase extends ResponsiveUIValidatorBase im
 
     @Override
     protected void drawRootElement() {
-        if (!rootElements.isEmpty()) {
-            getContext().drawRoot(rootElements.get(0));
+        if (!webElements.isEmpty()) {
+            getContext().drawRoot(asElement(webElements.get(0)));
         }
     }
-}
\ No newline at end of file
+
+    private interface Alignment {
+        void validate(UIElement element, UIElement elementToCompare, Context context);
+    }
+}
@@ -1,19 +1,27 @@
 package net.itarray.automotion.internal;
 
+import net.itarray.automotion.internal.geometry.ExtendGiving;
 import net.itarray.automotion.internal.geometry.Rectangle;
 import net.itarray.automotion.internal.geometry.Scalar;
 import net.itarray.automotion.internal.geometry.Vector;
+import net.itarray.automotion.internal.properties.CompiledCondition;
 import net.itarray.automotion.internal.properties.Context;
 import net.itarray.automotion.tools.helpers.Helper;
 import net.itarray.automotion.validation.ResponsiveUIValidator;
 import net.itarray.automotion.validation.UISnapshot;
 import net.itarray.automotion.validation.Units;
+import net.itarray.automotion.validation.properties.Condition;
 import org.json.simple.JSONObject;
-import org.openqa.selenium.Dimension;
+import org.openqa.selenium.WebElement;
 
 import java.awt.*;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import static net.itarray.automotion.validation.Constants.*;
 
@@ -28,14 +36,16 @@ public abstract class ResponsiveUIValidatorBase {
     private DrawableScreenshot drawableScreenshot;
     private Scalar tolerance;
     private boolean rootElementDrawn;
+    private final Context context = new ValidatorContext();
+    private final List<Consumer<DrawableScreenshot>> drawings = new ArrayList<>();
+    private final Map<Condition<?>, CompiledCondition<?>> compiledConditions = new ConcurrentHashMap<>();
 
     protected ResponsiveUIValidatorBase(UISnapshot snapshot) {
         this.snapshot = snapshot;
         this.driver = snapshot.getResponsiveUIValidator().getDriver();
         this.errors = new Errors();
         this.zoomFactor = snapshot.getZoomFactor();
-        Dimension dimension = this.driver.retrievePageSize();
-        this.page = UIElement.asElement(new net.itarray.automotion.internal.geometry.Rectangle(0, 0, dimension.getWidth(), dimension.getHeight()), "page");
+        this.page = UIElement.asElement(snapshot.getPagePercentages().getPage(), "page");
         this.startTime = System.currentTimeMillis();
         tolerance = snapshot.getResponsiveUIValidator().getTolerance();
     }
@@ -44,19 +54,53 @@ public abstract class ResponsiveUIValidatorBase {
     public DrawableScreenshot getDrawableScreenshot() {
         if (drawableScreenshot == null && this.errors.hasMessages()) {
             File screenshotName = snapshot.takeScreenshot();
-            Vector extend = driver.getExtend(screenshotName);
+            Vector extend = snapshot.getScreenshotExtend();
             this.drawableScreenshot = new DrawableScreenshot(extend, getTransform(), getDrawingConfiguration(), getNameOfToBeValidated(), screenshotName);
         }
-        if (isWithReport() && !rootElementDrawn && this.errors.hasMessages()) {
+        return drawableScreenshot;
+    }
+
+    /**
+     * Drawings are only recorded once the validation has failed, the root element first. They are
+     * applied when the report is compiled, so a passing validation takes no screenshot.
+     */
+    private void record(Consumer<DrawableScreenshot> drawing) {
+        if (errors.hasMessages() && isWithReport()) {
+            recordRootElement();
+            drawings.add(drawing);
+        }
+    }
+
+    private void recordRootElement() {
+        if (!rootElementDrawn) {
             rootElementDrawn = true;
             drawRootElement();
         }
-        return drawableScreenshot;
+    }
+
+    private void applyDrawings(DrawableScreenshot drawableScreenshot) {
+        recordRootElement();
+        for (Consumer<DrawableScreenshot> drawing : drawings) {
+            drawing.accept(drawableScreenshot);
+        }
+        drawings.clear();
     }
 
     protected void doSnapshot() {
     }
 
+    protected UIElement asElement(WebElement webElement) {
+        return snapshot.getElements().asElement(webElement);
+    }
+
+    protected UIElement asElement(WebElement webElement, String name) {
+        return snapshot.getElements().asElement(webElement, name);
+    }
+
+    protected List<UIElement> asElements(List<WebElement> webElements) {
+        return snapshot.getElements().asElements(webElements);
+    }
+
     public Errors getErrors() {
         return errors;
     }
@@ -110,75 +154,9 @@ public abstract class ResponsiveUIValidatorBase {
     }
 
     protected Context getContext() {
-        return new Context() {
-            @Override
-            public Rectangle getPageRectangle() {
-                return page.getRectangle();
-            }
-
-            @Override
-            public boolean isPixels() {
-                return ResponsiveUIValidatorBase.this.isPixels();
-            }
-
-            @Override
-            public Scalar getTolerance() {
-                return tolerance;
-            }
-
-            @Override
-            public void add(String message) {
-                errors.add(message);
-            }
-
-            @Override
-            public void draw(UIElement element) {
-                DrawableScreenshot drawableScreenshot = getDrawableScreenshot();
-                if (drawableScreenshot != null) {
-                    if (isWithReport()) {
-                        getDrawableScreenshot().draw(element);
-                    }
-                }
-            }
-
-            @Override
-            public void drawRoot(UIElement element) {
-                DrawableScreenshot drawableScreenshot = getDrawableScreenshot();
-                if (drawableScreenshot != null) {
-                    if (isWithReport()) {
-                        getDrawableScreenshot().drawRoot(element);
-                    }
-                }
-            }
-
-            @Override
-            public void drawHorizontalLine(Vector onLine) {
-                DrawableScreenshot drawableScreenshot = getDrawableScreenshot();
-                if (drawableScreenshot != null) {
-                    if (isWithReport()) {
-                        getDrawableScreenshot().drawHorizontalLine(onLine.getY());
-                    }
-                }
-            }
-
-            @Override
-            public void drawVerticalLine(Vector onLine) {
-                DrawableScreenshot drawableScreenshot = getDrawableScreenshot();
-                if (drawableScreenshot != null) {
-                    if (isWithReport()) {
-                        getDrawableScreenshot().drawVerticalLine(onLine.getX());
-                    }
-                }
-            }
-
-            @Override
-            public int errorCount() {
-                return errors.getMessages().size();
-            }
-        };
+        return context;
     }
 
-
     protected abstract String getNameOfToBeValidated();
 
     private void compileValidationReport() {
@@ -186,7 +164,8 @@ public abstract class ResponsiveUIValidatorBase {
 
         if (drawableScreenshot != null) {
             if (isWithReport()) {
-                getDrawableScreenshot().saveDrawing();
+                applyDrawings(drawableScreenshot);
+                drawableScreenshot.saveDrawing(getReport().getArtifacts());
             }
         }
 
@@ -245,13 +224,17 @@ public abstract class ResponsiveUIValidatorBase {
         String jsonFileName = getNameOfToBeValidated().replace(" ", "") + "-automotion" + ms + uuid + ".json";
         File jsonFile = new File(TARGET_AUTOMOTION_JSON + jsonFileName);
         jsonFile.getParentFile().mkdirs();
-        try (OutputStreamWriter outputStreamWriter =
-                     new OutputStreamWriter(new FileOutputStream(jsonFile), StandardCharsets.UTF_8);
-             Writer writer = new BufferedWriter(outputStreamWriter)) {
-            writer.write(jsonResults.toJSONString());
-        } catch (IOException ex) {
-            throw new RuntimeException("Cannot create json report: " + jsonFile, ex);
-        }
+        String json = jsonResults.toJSONString();
+        String validated = getNameOfToBeValidated();
+        getReport().getArtifacts().write(jsonFile, file -> {
+            try (OutputStreamWriter outputStreamWriter =
+                         new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+                 Writer writer = new BufferedWriter(outputStreamWriter)) {
+                writer.write(json);
+            } catch (IOException ex) {
+                throw new IOException("Cannot create json report of " + validated + ": " + ex.getMessage(), ex);
+            }
+        });
 
         addJsonFile(jsonFileName);
     }
@@ -300,4 +283,61 @@ public abstract class ResponsiveUIValidatorBase {
         return getReport().getDrawingConfiguration();
     }
 
+    private class ValidatorContext implements Context {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> CompiledCondition<T> compiled(Condition<T> condition) {
+            return (CompiledCondition<T>) compiledConditions.computeIfAbsent(condition, CompiledCondition::compile);
+        }
+
+        @Override
+        public Rectangle getPageRectangle() {
+            return page.getRectangle();
+        }
+
+        @Override
+        public Scalar pagePercentage(Scalar percentage, ExtendGiving<?> direction) {
+            return snapshot.getPagePercentages().resolve(percentage, direction);
+        }
+
+        @Override
+        public boolean isPixels() {
+            return ResponsiveUIValidatorBase.this.isPixels();
+        }
+
+        @Override
+        public Scalar getTolerance() {
+            return tolerance;
+        }
+
+        @Override
+        public void add(String message) {
+            errors.add(message);
+        }
+
+        @Override
+        public void draw(UIElement element) {
+            record(screenshot -> screenshot.draw(element));
+        }
+
+        @Override
+        public void drawRoot(UIElement element) {
+            record(screenshot -> screenshot.drawRoot(element));
+        }
+
+        @Override
+        public void drawHorizontalLine(Vector onLine) {
+            record(screenshot -> screenshot.drawHorizontalLine(onLine.getY()));
+        }
+
+        @Override
+        public void drawVerticalLine(Vector onLine) {
+            record(screenshot -> screenshot.drawVerticalLine(onLine.getX()));
+        }
+
+        @Override
+        public int errorCount() {
+            return errors.getMessages().size();
+        }
+    }
 }
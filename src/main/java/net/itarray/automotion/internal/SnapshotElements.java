@@ -0,0 +1,321 @@
+package net.itarray.automotion.internal;
+
+import net.itarray.automotion.internal.geometry.PackedRectangles;
+import net.itarray.automotion.internal.geometry.Rectangle;
+import net.itarray.automotion.internal.geometry.SpatialIndex;
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Suppliers.memoize;
+
+/**
+ * Creates the {@link UIElement}s of one snapshot. If a layout has been captured, geometry and styles
+ * of captured elements are answered from it; everything else is retrieved from the driver, batched
+ * per list of elements.
+ * Default names are only needed for error messages. They are retrieved for a whole list the first
+ * time any of them is asked for; elements gone stale by then are named by their geometry.
+ */
+public class SnapshotElements {
+
+    private final DriverFacade driver;
+    private final ComputedStyles computedStyles;
+    private final Map<WebElement, UIElement> elementsByWebElement = new HashMap<>();
+    private final Map<WebElement, Locator> locators = new HashMap<>();
+    private final Map<WebElement, WebElement> relocated = new HashMap<>();
+    private final Map<List<WebElement>, SpatialIndex> indexes = new HashMap<>();
+    private PageLayout layout = new PageLayout();
+
+    public SnapshotElements(DriverFacade driver) {
+        this.driver = driver;
+        this.computedStyles = new ComputedStyles(driver);
+    }
+
+    public void captureLayout(String cssSelector, List<String> cssPropertyNames) {
+        if (!driver.isBatchedCaptureSupported()) {
+            return;
+        }
+        layout = driver.retrievePageLayout(cssSelector, cssPropertyNames);
+        computedStyles.useLayout(layout);
+    }
+
+    /**
+     * Elements found here remember their locator, so they can be located again if they become stale
+     * before their geometry is retrieved.
+     */
+    public WebElement findElement(By by) {
+        WebElement found = driver.findElement(by);
+        locators.put(found, new Locator(by, 0, Locator.FIRST));
+        return found;
+    }
+
+    public List<WebElement> findElements(By by) {
+        List<WebElement> found = driver.findElements(by);
+        for (int i = 0; i < found.size(); i++) {
+            locators.put(found.get(i), new Locator(by, i, found.size()));
+        }
+        return found;
+    }
+
+    public PageLayout getLayout() {
+        return layout;
+    }
+
+    public ComputedStyles getComputedStyles() {
+        return computedStyles;
+    }
+
+    public UIElement asElement(WebElement webElement) {
+        return asElements(Collections.singletonList(webElement)).get(0);
+    }
+
+    public UIElement asElement(WebElement webElement, String name) {
+        return asElement(webElement).withName(name);
+    }
+
+    /**
+     * Elements are created once per snapshot. Geometry of those not seen before is retrieved in one batch.
+     */
+    public List<UIElement> asElements(List<WebElement> webElements) {
+        List<WebElement> missing = missing(webElements);
+        if (!missing.isEmpty()) {
+            create(missing, lookup(missing, PageLayout::getRectangle, this::retrieveRectangles));
+        }
+        return elementsOf(webElements);
+    }
+
+    /**
+     * Elements not seen before are created with the given rectangles, without retrieving their geometry.
+     */
+    public List<UIElement> asElements(List<WebElement> webElements, List<Rectangle> rectangles) {
+        List<WebElement> missing = new ArrayList<>();
+        List<Rectangle> missingRectangles = new ArrayList<>();
+        Set<WebElement> seen = new HashSet<>();
+        for (int i = 0; i < webElements.size(); i++) {
+            WebElement webElement = webElements.get(i);
+            if (!elementsByWebElement.containsKey(webElement) && seen.add(webElement)) {
+                missing.add(webElement);
+                missingRectangles.add(rectangles.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            create(missing, missingRectangles);
+        }
+        return elementsOf(webElements);
+    }
+
+    /**
+     * The rectangles of the elements. Rectangles known from elements or the captured layout are reused,
+     * the others are retrieved in one batch and their elements are created from them, so they are not
+     * retrieved again.
+     */
+    public PackedRectangles rectanglesOf(List<WebElement> webElements) {
+        PackedRectangles rectangles = new PackedRectangles(webElements.size());
+        List<WebElement> missing = new ArrayList<>();
+        List<Integer> missingIndexes = new ArrayList<>();
+        for (int i = 0; i < webElements.size(); i++) {
+            UIElement element = elementsByWebElement.get(webElements.get(i));
+            Rectangle inLayout = element == null ? layout.getRectangle(webElements.get(i)) : null;
+            if (element != null) {
+                rectangles.add(element.getLeft().intValue(), element.getTop().intValue(),
+                        element.getRight().intValue(), element.getBottom().intValue());
+            } else if (inLayout != null) {
+                rectangles.add(inLayout);
+            } else {
+                rectangles.add(0, 0, 0, 0);
+                missing.add(webElements.get(i));
+                missingIndexes.add(i);
+            }
+        }
+        if (!missing.isEmpty()) {
+            PackedRectangles retrieved = retrieveRectangles(missing);
+            for (int i = 0; i < missing.size(); i++) {
+                rectangles.set(missingIndexes.get(i), retrieved, i);
+            }
+            asElements(missing, retrieved);
+        }
+        return rectangles;
+    }
+
+    /**
+     * A spatial index of the elements, built once per list of elements and snapshot. Validators of
+     * different root elements checking the same elements share it. It is looked up by a copy of the list,
+     * so a list changed after indexing it is indexed again.
+     */
+    public SpatialIndex indexOf(List<WebElement> webElements) {
+        return indexes.computeIfAbsent(Collections.unmodifiableList(new ArrayList<>(webElements)),
+                list -> new SpatialIndex(rectanglesOf(list)));
+    }
+
+    private List<WebElement> missing(List<WebElement> webElements) {
+        return webElements.stream().filter(e -> !elementsByWebElement.containsKey(e)).distinct().collect(Collectors.toList());
+    }
+
+    private List<UIElement> elementsOf(List<WebElement> webElements) {
+        return webElements.stream().map(elementsByWebElement::get).collect(Collectors.toList());
+    }
+
+    private void create(List<WebElement> missing, List<Rectangle> rectangles) {
+        List<WebElement> batch = current(missing);
+        Supplier<List<List<String>>> nameProperties = memoize(() -> retrieveNameProperties(missing));
+        for (int i = 0; i < missing.size(); i++) {
+            int index = i;
+            Rectangle rectangle = rectangles.get(index);
+            Supplier<String> name = memoize(() -> UIElement.defaultName(nameProperties.get().get(index), rectangle));
+            elementsByWebElement.put(missing.get(index), UIElement.asElement(name, rectangle, computedStyles.cssSourceOf(batch.get(index), batch)));
+        }
+    }
+
+    /**
+     * Names of captured elements are answered from the layout. If an element has gone stale since its
+     * geometry was retrieved, the others are named one by one and the stale one by its geometry only.
+     */
+    private List<List<String>> retrieveNameProperties(List<WebElement> webElements) {
+        try {
+            return lookup(webElements, PageLayout::getNameProperties, list -> driver.retrieveNameProperties(current(list)));
+        } catch (StaleElementReferenceException e) {
+            return webElements.stream().map(this::retrieveNameProperties).collect(Collectors.toList());
+        }
+    }
+
+    private List<String> retrieveNameProperties(WebElement webElement) {
+        List<String> inLayout = layout.getNameProperties(webElement);
+        if (inLayout != null) {
+            return inLayout;
+        }
+        try {
+            return driver.retrieveNameProperties(Collections.singletonList(current(webElement))).get(0);
+        } catch (StaleElementReferenceException e) {
+            return UIElement.STALE_NAME_PROPERTIES;
+        }
+    }
+
+    /**
+     * Stale elements are located again by their locator and retrieved in one extra pass; the others are
+     * retrieved only once. If the driver rejects the whole batch before the script can tell which
+     * elements are stale, all of them are located again and retrieved in that one extra pass.
+     */
+    private PackedRectangles retrieveRectangles(List<WebElement> webElements) {
+        if (driver.isBatchedCaptureSupported()) {
+            List<Integer> staleIndexes = new ArrayList<>();
+            PackedRectangles rectangles;
+            try {
+                rectangles = driver.retrieveRectangles(webElements, staleIndexes);
+            } catch (StaleElementReferenceException e) {
+                relocate(webElements);
+                return driver.retrieveRectangles(current(webElements));
+            }
+            if (!staleIndexes.isEmpty()) {
+                List<WebElement> stale = staleIndexes.stream().map(webElements::get).collect(Collectors.toList());
+                relocate(stale);
+                PackedRectangles relocated = driver.retrieveRectangles(current(stale));
+                for (int i = 0; i < staleIndexes.size(); i++) {
+                    rectangles.set(staleIndexes.get(i), relocated, i);
+                }
+            }
+            return rectangles;
+        }
+        PackedRectangles rectangles = new PackedRectangles(webElements.size());
+        List<Integer> staleIndexes = new ArrayList<>();
+        for (int i = 0; i < webElements.size(); i++) {
+            try {
+                rectangles.add(webElements.get(i));
+            } catch (StaleElementReferenceException e) {
+                rectangles.add(0, 0, 0, 0);
+                staleIndexes.add(i);
+            }
+        }
+        if (!staleIndexes.isEmpty()) {
+            relocate(staleIndexes.stream().map(webElements::get).collect(Collectors.toList()));
+            PackedRectangles relocated = new PackedRectangles(staleIndexes.size());
+            for (int index : staleIndexes) {
+                relocated.add(current(webElements.get(index)));
+            }
+            for (int i = 0; i < staleIndexes.size(); i++) {
+                rectangles.set(staleIndexes.get(i), relocated, i);
+            }
+        }
+        return rectangles;
+    }
+
+    /**
+     * An element is located again by its position among the elements its locator finds. That position
+     * only identifies the same element if the locator still finds as many elements as it did before.
+     */
+    private void relocate(List<WebElement> webElements) {
+        Map<By, List<WebElement>> foundByLocator = new HashMap<>();
+        for (WebElement webElement : webElements) {
+            Locator locator = locators.get(webElement);
+            if (locator == null) {
+                continue;
+            }
+            List<WebElement> found = foundByLocator.computeIfAbsent(locator.by, driver::findElements);
+            if (locator.count != Locator.FIRST && found.size() != locator.count) {
+                throw new StaleElementReferenceException(String.format(
+                        "Cannot locate a stale element again: %s found %d elements before and %d now",
+                        locator.by, locator.count, found.size()));
+            }
+            if (locator.index < found.size() && !found.get(locator.index).equals(webElement)) {
+                relocated.put(webElement, found.get(locator.index));
+            }
+        }
+    }
+
+    private WebElement current(WebElement webElement) {
+        return relocated.getOrDefault(webElement, webElement);
+    }
+
+    private List<WebElement> current(List<WebElement> webElements) {
+        return webElements.stream().map(this::current).collect(Collectors.toList());
+    }
+
+    private <T> List<T> lookup(List<WebElement> webElements,
+                               BiFunction<PageLayout, WebElement, T> fromLayout,
+                               Function<List<WebElement>, List<T>> fromDriver) {
+        List<T> result = new ArrayList<>(webElements.size());
+        List<WebElement> missing = new ArrayList<>();
+        List<Integer> missingIndexes = new ArrayList<>();
+        for (int i = 0; i < webElements.size(); i++) {
+            T value = fromLayout.apply(layout, webElements.get(i));
+            result.add(value);
+            if (value == null) {
+                missing.add(webElements.get(i));
+                missingIndexes.add(i);
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<T> retrieved = fromDriver.apply(missing);
+            for (int i = 0; i < missing.size(); i++) {
+                result.set(missingIndexes.get(i), retrieved.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static class Locator {
+        // found as the first match, however many elements the locator finds
+        private static final int FIRST = -1;
+
+        private final By by;
+        private final int index;
+        private final int count;
+
+        private Locator(By by, int index, int count) {
+            this.by = by;
+            this.index = index;
+            this.count = count;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import net.itarray.automotion.internal.geometry.Interval;
 import net.itarray.automotion.internal.geometry.Rectangle;
 import net.itarray.automotion.internal.geometry.Scalar;
 import net.itarray.automotion.internal.geometry.Vector;
+import net.itarray.automotion.internal.properties.CompiledCondition;
 import net.itarray.automotion.internal.properties.Context;
 import net.itarray.automotion.internal.properties.SuccessorConditionedExpressionDescription;
 import net.itarray.automotion.tools.general.SystemHelper;
@@ -14,14 +15,16 @@ import net.itarray.automotion.tools.helpers.TextFinder;
 import net.itarray.automotion.validation.properties.Condition;
 import net.itarray.automotion.internal.properties.ElementPropertyExpression;
 import net.itarray.automotion.validation.properties.Expression;
-import org.openqa.selenium.Dimension;
-import org.openqa.selenium.Point;
+import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.WebElement;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static com.google.common.base.Suppliers.memoize;
 import static net.itarray.automotion.internal.geometry.Direction.*;
 import static net.itarray.automotion.internal.geometry.Rectangle.ORIGIN_CORNER;
 import static net.itarray.automotion.internal.geometry.Scalar.scalar;
@@ -31,25 +34,43 @@ import static org.apache.commons.lang3.text.WordUtils.capitalize;
 public class UIElement {
     private static final String PIXELS = "px";
 
-    private final String name;
+    private final Supplier<String> name;
     private final boolean quoteName;
     private final Rectangle rectangle;
     private final CSSSource cssSource;
 
-    private UIElement(String name, Rectangle rectangle, CSSSource cssSource, boolean quoteName) {
+    private UIElement(Supplier<String> name, Rectangle rectangle, CSSSource cssSource, boolean quoteName) {
         this.name = name;
         this.quoteName = quoteName;
         this.rectangle = rectangle;
         this.cssSource = cssSource;
     }
 
+    private UIElement(String name, Rectangle rectangle, CSSSource cssSource, boolean quoteName) {
+        this(() -> name, rectangle, cssSource, quoteName);
+    }
+
     @Deprecated
     public Rectangle getRectangle() {
         return rectangle;
     }
 
     public static UIElement asElement(WebElement webElement) {
-        return new UIElement(defaultName(webElement), Rectangle.rectangle(webElement), new SeleniumCSSSource(webElement), true);
+        Rectangle rectangle = Rectangle.rectangle(webElement);
+        Supplier<String> name = memoize(() -> defaultName(nameProperties(webElement), rectangle));
+        return new UIElement(name, rectangle, new SeleniumCSSSource(webElement), true);
+    }
+
+    /**
+     * Names are retrieved when they are first needed; an element gone stale by then is named by its
+     * geometry only.
+     */
+    private static List<String> nameProperties(WebElement webElement) {
+        try {
+            return DriverFacade.retrieveNameProperties(webElement);
+        } catch (StaleElementReferenceException e) {
+            return STALE_NAME_PROPERTIES;
+        }
     }
 
     public static UIElement asElement(WebElement webElement, String name) {
@@ -64,27 +85,40 @@ public class UIElement {
         return webElements.stream().map(UIElement::asElement).collect(Collectors.toList());
     }
 
+    static UIElement asElement(Supplier<String> name, Rectangle rectangle, CSSSource cssSource) {
+        return new UIElement(name, rectangle, cssSource, true);
+    }
+
+    UIElement withName(String name) {
+        return new UIElement(name, rectangle, cssSource, quoteName);
+    }
+
     public static List<UIElement> asNumberedList(List<UIElement> elements) {
         ArrayList<UIElement> numbered = new ArrayList<>(elements.size());
         for (int i = 0; i < elements.size(); i++) {
-            UIElement element = elements.get(i);
-            numbered.add(new UIElement(String.format("#%d:%s", i+1, element.rectangle), element.rectangle, element.cssSource, false));
+            numbered.add(elements.get(i).numbered(i + 1));
         }
         return numbered;
     }
 
-    private static String defaultName(WebElement webElement) {
-        Point location = webElement.getLocation();
-        Dimension size = webElement.getSize();
+    UIElement numbered(int number) {
+        return new UIElement(() -> String.format("#%d:%s", number, rectangle), rectangle, cssSource, false);
+    }
+
+    static final List<String> STALE_NAME_PROPERTIES = Arrays.asList("stale element", null, null, "");
+
+    static String defaultName(List<String> nameProperties, Rectangle rectangle) {
+        Vector location = rectangle.getOrigin();
+        Vector size = ORIGIN_CORNER.extend(rectangle);
         return String.format("with properties: tag=[%s], id=[%s], class=[%s], text=[%s], coord=[%s,%s], size=[%s,%s]",
-                webElement.getTagName(),
-                webElement.getAttribute("id"),
-                webElement.getAttribute("class"),
-                getShortenedText(webElement.getText()),
-                String.valueOf(location.getX()),
-                String.valueOf(location.getY()),
-                String.valueOf(size.getWidth()),
-                String.valueOf(size.getHeight()));
+                nameProperties.get(0),
+                nameProperties.get(1),
+                nameProperties.get(2),
+                getShortenedText(nameProperties.get(3)),
+                location.getX(),
+                location.getY(),
+                size.getX(),
+                size.getY());
     }
 
     public <V extends MetricSpace<V>> V  getBegin(ExtendGiving<V>  direction) {
@@ -218,11 +252,11 @@ public class UIElement {
     }
 
     public String getName() {
-        return name;
+        return name.get();
     }
 
     public String getQuotedName() {
-        return quoteName ? String.format("'%s'", name) : name;
+        return quoteName ? String.format("'%s'", getName()) : getName();
     }
 
     private static String getShortenedText(String text) {
@@ -345,9 +379,9 @@ public class UIElement {
 
     public <V extends MetricSpace<V>> void validateSuccessor(ExtendGiving<V> direction, UIElement toBeValidatedSuccessor, Condition<V> condition, Context context) {
         Expression<V> signedDistance = Expression.signedDistance(end(direction), toBeValidatedSuccessor.begin(direction), direction);
-        Expression<Boolean> assertion = condition.applyTo(signedDistance, new SuccessorConditionedExpressionDescription<>(signedDistance, condition, direction));
-        if (!assertion.evaluateIn(context, direction)) {
-            context.add(assertion.getDescription(context, direction));
+        CompiledCondition<V>.Evaluation evaluation = context.compiled(condition).evaluate(signedDistance, context, direction);
+        if (!evaluation.isSatisfied()) {
+            context.add(new SuccessorConditionedExpressionDescription<>(signedDistance, condition, direction).describe(evaluation.describing(), direction));
             context.draw(toBeValidatedSuccessor);
         }
     }
@@ -391,14 +425,15 @@ public class UIElement {
 
     public void validateOffset(Direction direction, Condition condition, UIElement page, Context context) {
         Expression<Scalar> offset = offset(page, direction);
-        if (!condition.isSatisfiedOn(offset, context, direction)) {
+        CompiledCondition<Scalar>.Evaluation evaluation = context.compiled((Condition<Scalar>) condition).evaluate(offset, context, direction);
+        if (!evaluation.isSatisfied()) {
             context.add(
                     String.format("Expected %s offset of element %s to be %s. Actual %s offset is: %s",
                             direction.endName(),
                             getQuotedName(),
-                            condition.getDescription(context, direction),
+                            condition.getDescription(evaluation.describing(), direction),
                             direction.endName(),
-                            offset.evaluateIn(context, direction).toStringWithUnits(PIXELS)));
+                            evaluation.getValue().toStringWithUnits(PIXELS)));
         }
     }
 
@@ -437,10 +472,11 @@ public class UIElement {
     }
 
     private void validateExtend(Direction direction, Condition<Scalar> condition, Context context) {
-        Expression<Boolean> assertion = condition.applyTo(extend(direction));
-        if (!assertion.evaluateIn(context, direction)) {
+        Expression<Scalar> extend = extend(direction);
+        CompiledCondition<Scalar>.Evaluation evaluation = context.compiled(condition).evaluate(extend, context, direction);
+        if (!evaluation.isSatisfied()) {
             context.add(
-                    assertion.getDescription(context, direction));
+                    condition.applyTo(extend).getDescription(evaluation.describing(), direction));
         }
     }
 
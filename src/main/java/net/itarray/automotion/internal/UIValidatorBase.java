@@ -2,6 +2,8 @@ package net.itarray.automotion.internal;
 
 import net.itarray.automotion.internal.geometry.Direction;
 import net.itarray.automotion.internal.geometry.Scalar;
+import net.itarray.automotion.internal.geometry.SpatialIndex;
+import net.itarray.automotion.internal.geometry.SpatialIndex.Key;
 import net.itarray.automotion.internal.properties.Context;
 import net.itarray.automotion.internal.properties.PixelConstant;
 import net.itarray.automotion.validation.UIElementValidator;
@@ -14,13 +16,14 @@ import org.json.simple.JSONObject;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebElement;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static net.itarray.automotion.internal.geometry.Scalar.scalar;
 import static net.itarray.automotion.validation.properties.Expression.percentOrPixels;
 import static net.itarray.automotion.validation.Constants.*;
-import static net.itarray.automotion.internal.UIElement.asElement;
-import static net.itarray.automotion.internal.UIElement.asElements;
 import static net.itarray.automotion.internal.properties.PercentReference.PAGE;
 import static net.itarray.automotion.validation.properties.Condition.greaterOrEqualTo;
 import static net.itarray.automotion.validation.properties.Condition.lessOrEqualTo;
@@ -180,8 +183,14 @@ public class UIValidatorBase extends ResponsiveUIValidatorBase implements UIElem
      */
     @Override
     public UIValidatorBase isNotOverlapping(List<WebElement> elements) {
-        for (WebElement element : elements) {
-            rootElement.validateNotOverlappingWithElement(asElement(element), getContext());
+        Context context = getContext();
+        int tolerance = context.getTolerance().intValue();
+        SpatialIndex index = snapshot.getElements().indexOf(elements);
+        List<Integer> overlapping = index.intersecting(
+                rootElement.getLeft().intValue() + tolerance, rootElement.getTop().intValue() + tolerance,
+                rootElement.getRight().intValue() - tolerance, rootElement.getBottom().intValue() - tolerance);
+        for (UIElement element : elementsAt(elements, index, overlapping)) {
+            rootElement.validateNotOverlappingWithElement(element, context);
         }
         return this;
     }
@@ -210,7 +219,7 @@ public class UIValidatorBase extends ResponsiveUIValidatorBase implements UIElem
     @Override
     public UIValidatorBase isLeftAlignedWith(List<WebElement> webElements) {
         Context context = getContext();
-        for (UIElement element : asElements(webElements)) {
+        for (UIElement element : differing(webElements, Key.LEFT, rootElement.getLeft())) {
             rootElement.validateLeftAlignedWith(element, context);
         }
         context.drawVerticalLine(rootElement.getOrigin());
@@ -241,8 +250,8 @@ public class UIValidatorBase extends ResponsiveUIValidatorBase implements UIElem
     @Override
     public UIValidatorBase isRightAlignedWith(List<WebElement> elements) {
         Context context = getContext();
-        for (WebElement element : elements) {
-            rootElement.validateRightAlignedWith(asElement(element), context);
+        for (UIElement element : differing(elements, Key.RIGHT, rootElement.getRight())) {
+            rootElement.validateRightAlignedWith(element, context);
         }
         context.drawVerticalLine(rootElement.getCorner());
         return this;
@@ -272,8 +281,8 @@ public class UIValidatorBase extends ResponsiveUIValidatorBase implements UIElem
     @Override
     public UIValidatorBase isTopAlignedWith(List<WebElement> elements) {
         Context context = getContext();
-        for (WebElement element : elements) {
-            rootElement.validateTopAlignedWith(asElement(element), context);
+        for (UIElement element : differing(elements, Key.TOP, rootElement.getTop())) {
+            rootElement.validateTopAlignedWith(element, context);
         }
         context.drawHorizontalLine(rootElement.getOrigin());
         return this;
@@ -303,8 +312,8 @@ public class UIValidatorBase extends ResponsiveUIValidatorBase implements UIElem
     @Override
     public UIValidatorBase isBottomAlignedWith(List<WebElement> elements) {
         Context context = getContext();
-        for (WebElement element : elements) {
-            rootElement.validateBottomAlignedWith(asElement(element), context);
+        for (UIElement element : differing(elements, Key.BOTTOM, rootElement.getBottom())) {
+            rootElement.validateBottomAlignedWith(element, context);
         }
         context.drawHorizontalLine(rootElement.getCorner());
         return this;
@@ -331,8 +340,8 @@ public class UIValidatorBase extends ResponsiveUIValidatorBase implements UIElem
      */
     @Override
     public UIValidatorBase hasEqualWidthAs(List<WebElement> elements) {
-        for (WebElement element : elements) {
-            rootElement.validateSameWidth(asElement(element), getContext());
+        for (UIElement element : differing(elements, Key.WIDTH, rootElement.getWidth())) {
+            rootElement.validateSameWidth(element, getContext());
         }
         return this;
     }
@@ -363,8 +372,8 @@ public class UIValidatorBase extends ResponsiveUIValidatorBase implements UIElem
      */
     @Override
     public UIValidatorBase hasEqualHeightAs(List<WebElement> elements) {
-        for (WebElement element : elements) {
-            rootElement.validateSameHeight(asElement(element), getContext());
+        for (UIElement element : differing(elements, Key.HEIGHT, rootElement.getHeight())) {
+            rootElement.validateSameHeight(element, getContext());
         }
         return this;
     }
@@ -395,8 +404,8 @@ public class UIValidatorBase extends ResponsiveUIValidatorBase implements UIElem
      */
     @Override
     public UIValidatorBase hasEqualSizeAs(List<WebElement> elements) {
-        for (WebElement element : elements) {
-            rootElement.validateSameSize(asElement(element), getContext());
+        for (UIElement element : sized(elements, false)) {
+            rootElement.validateSameSize(element, getContext());
         }
         return this;
     }
@@ -422,8 +431,8 @@ public class UIValidatorBase extends ResponsiveUIValidatorBase implements UIElem
      */
     @Override
     public UIValidatorBase hasDifferentSizeAs(List<WebElement> elements) {
-        for (WebElement element : elements) {
-            validateNotSameSize(asElement(element));
+        for (UIElement element : sized(elements, true)) {
+            validateNotSameSize(element);
         }
         return this;
     }
@@ -579,6 +588,45 @@ public class UIValidatorBase extends ResponsiveUIValidatorBase implements UIElem
         return this;
     }
 
+    /**
+     * The elements of the list whose key differs from the value by more than the tolerance.
+     */
+    private List<UIElement> differing(List<WebElement> webElements, Key key, Scalar value) {
+        int tolerance = getContext().getTolerance().intValue();
+        SpatialIndex index = snapshot.getElements().indexOf(webElements);
+        return elementsAt(webElements, index, index.outside(key, value.intValue() - tolerance, value.intValue() + tolerance));
+    }
+
+    /**
+     * The elements of the list whose size equals the size of the root element within the tolerance, or
+     * those whose size does not.
+     */
+    private List<UIElement> sized(List<WebElement> webElements, boolean equal) {
+        long tolerance = getContext().getTolerance().intValue();
+        int width = rootElement.getWidth().intValue();
+        int height = rootElement.getHeight().intValue();
+        SpatialIndex index = snapshot.getElements().indexOf(webElements);
+        List<Integer> found = new ArrayList<>();
+        if (!equal) {
+            found.addAll(index.outside(Key.WIDTH, (int) (width - tolerance), (int) (width + tolerance)));
+        }
+        for (int i : index.within(Key.WIDTH, (int) (width - tolerance), (int) (width + tolerance))) {
+            long dx = (long) index.value(Key.WIDTH, i) - width;
+            long dy = (long) index.value(Key.HEIGHT, i) - height;
+            if ((dx * dx + dy * dy <= tolerance * tolerance) == equal) {
+                found.add(i);
+            }
+        }
+        Collections.sort(found);
+        return elementsAt(webElements, index, found);
+    }
+
+    private List<UIElement> elementsAt(List<WebElement> webElements, SpatialIndex index, List<Integer> indexes) {
+        return snapshot.getElements().asElements(
+                indexes.stream().map(webElements::get).collect(Collectors.toList()),
+                indexes.stream().map(index.getRectangles()::get).collect(Collectors.toList()));
+    }
+
     private void validateNotSameSize(UIElement element) {
         rootElement.validateNotSameSize(element, getContext());
     }
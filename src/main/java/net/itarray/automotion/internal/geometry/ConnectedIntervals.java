@@ -1,49 +1,102 @@
 package net.itarray.automotion.internal.geometry;
 
-import com.google.common.collect.Lists;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import static java.lang.String.format;
+import static net.itarray.automotion.internal.geometry.Interval.interval;
 
+/**
+ * The connected components of a set of half open intervals with whole pixel endpoints. Components are
+ * kept as sorted arrays of begins and ends, so looking up the component of an interval is a binary
+ * search that allocates nothing.
+ */
 public class ConnectedIntervals {
-    private final List<Interval> components;
+    private final int[] begins;
+    private final int[] ends;
+    private final int size;
 
     public ConnectedIntervals(List<Interval> intervals) {
-        this.components = Lists.newArrayList();
-        ArrayList<Interval> sorted = new ArrayList<>(intervals);
-        Comparator<Interval> comparator = Interval.comparator();
-        Collections.sort(sorted, comparator);
+        this(intervals.stream().filter(i -> !i.isEmpty()).mapToInt(i -> ((Interval.NonEmpty) i).begin().intValue()).toArray(),
+                intervals.stream().filter(i -> !i.isEmpty()).mapToInt(i -> ((Interval.NonEmpty) i).end().intValue()).toArray());
+    }
+
+    /**
+     * @param begins the begins of the intervals
+     * @param ends the ends of the intervals, in the order of their begins; empty intervals are ignored
+     */
+    public ConnectedIntervals(int[] begins, int[] ends) {
+        int[] sorted = IntStream.range(0, begins.length)
+                .filter(i -> begins[i] < ends[i])
+                .boxed()
+                .sorted((i, j) -> begins[i] != begins[j] ? Integer.compare(begins[i], begins[j]) : Integer.compare(ends[i], ends[j]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        this.begins = new int[sorted.length];
+        this.ends = new int[sorted.length];
+        int count = 0;
         int i = 0;
-        while (i < sorted.size()) {
-            Interval interval = sorted.get(i);
+        while (i < sorted.length) {
+            int begin = begins[sorted[i]];
+            int end = ends[sorted[i]];
             i++;
-            while (i < sorted.size() && !interval.intersect(sorted.get(i)).isEmpty()) {
-                interval = interval.span(sorted.get(i));
+            while (i < sorted.length && begins[sorted[i]] < end) {
+                end = Math.max(end, ends[sorted[i]]);
                 i++;
             }
-            components.add(interval);
+            this.begins[count] = begin;
+            this.ends[count] = end;
+            count++;
         }
+        this.size = count;
     }
 
     public Interval get(int index) {
-        return components.get(index);
+        checkIndex(index);
+        return interval(begins[index], ends[index]);
+    }
+
+    public int begin(int index) {
+        checkIndex(index);
+        return begins[index];
+    }
+
+    public int end(int index) {
+        checkIndex(index);
+        return ends[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(format("index %d, size %d", index, size));
+        }
     }
 
     public int size() {
-        return components.size();
+        return size;
     }
 
     public int indexOf(Interval interval) {
-        for (int i = 0; i < components.size(); i++) {
-            Interval component = components.get(i);
-            if (!component.intersect(interval).isEmpty()) {
-                return i;
-            }
+        if (interval.isEmpty()) {
+            throw new RuntimeException(format("interval %s is not in connected intervals", interval));
+        }
+        Interval.NonEmpty nonEmpty = (Interval.NonEmpty) interval;
+        return indexOf(nonEmpty.begin().intValue(), nonEmpty.end().intValue());
+    }
+
+    /**
+     * The index of the first component intersecting the interval from begin to end.
+     */
+    public int indexOf(int begin, int end) {
+        int index = Arrays.binarySearch(ends, 0, size, begin + 1);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        // ends are strictly increasing, so this is the first component ending after begin
+        if (begin >= end || index == size || begins[index] >= end) {
+            throw new RuntimeException(format("interval %s is not in connected intervals", interval(begin, end)));
         }
-        throw new RuntimeException(format("interval %s is not in connected intervals", interval));
+        return index;
     }
 }
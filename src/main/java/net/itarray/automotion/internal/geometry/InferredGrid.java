@@ -0,0 +1,93 @@
+package net.itarray.automotion.internal.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * The rows and columns a list of rectangles is laid out in. Rectangles whose tops chain together with
+ * gaps of at most the tolerance form a row, lefts likewise form a column. Each is found in one sort of
+ * the coordinates.
+ */
+public class InferredGrid {
+
+    private final List<List<Integer>> rows;
+    private final List<List<Integer>> columns;
+    private final int[] rowOf;
+    private final int[] columnOf;
+
+    public InferredGrid(PackedRectangles rectangles, Scalar tolerance) {
+        int maximalGap = tolerance.intValue();
+        rowOf = new int[rectangles.size()];
+        columnOf = new int[rectangles.size()];
+        rows = parts(rectangles.size(), rectangles::top, maximalGap, rowOf);
+        columns = parts(rectangles.size(), rectangles::left, maximalGap, columnOf);
+    }
+
+    /**
+     * Sorts the indexes by their coordinate, equal coordinates by index, and cuts them into parts where
+     * the next coordinate is more than maximalGap apart. The coordinate and index of each are packed into
+     * one long, so sorting needs no comparator.
+     */
+    private static List<List<Integer>> parts(int size, IntUnaryOperator coordinate, int maximalGap, int[] partOf) {
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = ((long) coordinate.applyAsInt(i) << 32) | i;
+        }
+        Arrays.sort(sorted);
+        List<List<Integer>> parts = new ArrayList<>();
+        List<Integer> part = null;
+        int last = 0;
+        for (long entry : sorted) {
+            int value = (int) (entry >> 32);
+            int index = (int) entry;
+            if (part == null || (long) value - last > maximalGap) {
+                part = new ArrayList<>();
+                parts.add(part);
+            }
+            part.add(index);
+            partOf[index] = parts.size() - 1;
+            last = value;
+        }
+        return parts;
+    }
+
+    /**
+     * The indexes of the rectangles in each row, rows ordered from top to bottom.
+     */
+    public List<List<Integer>> getRows() {
+        return rows;
+    }
+
+    /**
+     * The indexes of the rectangles in each column, columns ordered from left to right.
+     */
+    public List<List<Integer>> getColumns() {
+        return columns;
+    }
+
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    public int rowOf(int index) {
+        return rowOf[index];
+    }
+
+    public int columnOf(int index) {
+        return columnOf[index];
+    }
+
+    /**
+     * The number of rectangles in each row, from top to bottom.
+     */
+    public List<Integer> getRowSizes() {
+        return rows.stream().map(List::size).collect(Collectors.toList());
+    }
+}
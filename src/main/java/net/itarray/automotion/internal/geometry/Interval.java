@@ -97,7 +97,7 @@ public abstract class Interval {
         }
     }
 
-    private static class NonEmpty extends Interval implements Comparable<NonEmpty> {
+    static class NonEmpty extends Interval implements Comparable<NonEmpty> {
         private final Scalar begin;
         private final Scalar end;
 
@@ -129,6 +129,14 @@ public abstract class Interval {
             return false;
         }
 
+        Scalar begin() {
+            return begin;
+        }
+
+        Scalar end() {
+            return end;
+        }
+
         @Override
         public Interval intersect(Interval interval) {
             return interval.intersectWithNonEmpty(this);
@@ -0,0 +1,130 @@
+package net.itarray.automotion.internal.geometry;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.WebElement;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Rectangles with integral coordinates, stored as four int arrays. Rules iterate the coordinates
+ * directly; {@link Rectangle}s are only created by {@link #get(int)}.
+ */
+public class PackedRectangles extends AbstractList<Rectangle> implements RandomAccess {
+
+    private int[] left;
+    private int[] top;
+    private int[] right;
+    private int[] bottom;
+    private int size;
+
+    public PackedRectangles(int capacity) {
+        left = new int[capacity];
+        top = new int[capacity];
+        right = new int[capacity];
+        bottom = new int[capacity];
+    }
+
+    public static PackedRectangles of(List<Rectangle> rectangles) {
+        if (rectangles instanceof PackedRectangles) {
+            return (PackedRectangles) rectangles;
+        }
+        PackedRectangles packed = new PackedRectangles(rectangles.size());
+        for (Rectangle rectangle : rectangles) {
+            packed.add(rectangle);
+        }
+        return packed;
+    }
+
+    public void add(int left, int top, int right, int bottom) {
+        if (size == this.left.length) {
+            int capacity = Math.max(8, size * 2);
+            this.left = Arrays.copyOf(this.left, capacity);
+            this.top = Arrays.copyOf(this.top, capacity);
+            this.right = Arrays.copyOf(this.right, capacity);
+            this.bottom = Arrays.copyOf(this.bottom, capacity);
+        }
+        this.left[size] = left;
+        this.top[size] = top;
+        this.right[size] = right;
+        this.bottom[size] = bottom;
+        size++;
+        modCount++;
+    }
+
+    public void add(WebElement webElement) {
+        Point location = webElement.getLocation();
+        Dimension size = webElement.getSize();
+        add(location.getX(), location.getY(), location.getX() + size.getWidth(), location.getY() + size.getHeight());
+    }
+
+    public void set(int index, int left, int top, int right, int bottom) {
+        checkIndex(index);
+        this.left[index] = left;
+        this.top[index] = top;
+        this.right[index] = right;
+        this.bottom[index] = bottom;
+    }
+
+    /**
+     * Copies the coordinates of a rectangle of another packed list, without creating a {@link Rectangle}.
+     */
+    public void set(int index, PackedRectangles from, int fromIndex) {
+        set(index, from.left(fromIndex), from.top(fromIndex), from.right(fromIndex), from.bottom(fromIndex));
+    }
+
+    @Override
+    public boolean add(Rectangle rectangle) {
+        add(rectangle.getOrigin().getX().intValue(), rectangle.getOrigin().getY().intValue(),
+                rectangle.getCorner().getX().intValue(), rectangle.getCorner().getY().intValue());
+        return true;
+    }
+
+    @Override
+    public Rectangle get(int index) {
+        checkIndex(index);
+        return new Rectangle(left[index], top[index], right[index], bottom[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int left(int index) {
+        checkIndex(index);
+        return left[index];
+    }
+
+    public int top(int index) {
+        checkIndex(index);
+        return top[index];
+    }
+
+    public int right(int index) {
+        checkIndex(index);
+        return right[index];
+    }
+
+    public int bottom(int index) {
+        checkIndex(index);
+        return bottom[index];
+    }
+
+    public int width(int index) {
+        return right(index) - left(index);
+    }
+
+    public int height(int index) {
+        return bottom(index) - top(index);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("index %d, size %d", index, size));
+        }
+    }
+}
@@ -4,14 +4,22 @@ import net.itarray.automotion.internal.properties.Context;
 import net.itarray.automotion.validation.properties.Condition;
 import org.apache.commons.math3.fraction.Fraction;
 
+/**
+ * Integral values - almost all coordinates - are kept as longs. Only divisions that do not come out
+ * evenly produce a fraction, and fractions with denominator one are turned back into longs, so every
+ * value has a single representation.
+ */
 public class Scalar implements MetricSpace<Scalar>, Comparable<Scalar> {
+    private final long value;
     private final Fraction fraction;
 
-    private Scalar(int value) {
-        fraction = new Fraction(value);
+    private Scalar(long value) {
+        this.value = value;
+        this.fraction = null;
     }
 
     private Scalar(Fraction fraction) {
+        this.value = 0;
         this.fraction = fraction;
     }
 
@@ -20,38 +28,48 @@ public class Scalar implements MetricSpace<Scalar>, Comparable<Scalar> {
     }
 
     public static Scalar scalar(Fraction fraction) {
+        if (fraction.getDenominator() == 1) {
+            return new Scalar(fraction.getNumerator());
+        }
         return new Scalar(fraction);
     }
 
+    private boolean isIntegral() {
+        return fraction == null;
+    }
+
     @Override
     public boolean equals(Object object) {
         if (!(object instanceof Scalar)) {
             return false;
         }
         Scalar other = (Scalar) object;
+        if (isIntegral() || other.isIntegral()) {
+            return isIntegral() && other.isIntegral() && value == other.value;
+        }
         return fraction.equals(other.fraction);
     }
 
     @Override
     public int hashCode() {
-        return fraction.hashCode();
+        return isIntegral() ? Long.hashCode(value) : fraction.hashCode();
     }
 
     @Override
     public String toString() {
-        return String.format("%s", fraction);
+        return isIntegral() ? Long.toString(value) : fraction.toString();
     }
 
     public String toStringWithUnits(String units) {
-        return String.format("%s%s", fraction, units);
+        return String.format("%s%s", this, units);
     }
 
     public int intValue() { // todo: remove usages, this is introspection
-        return fraction.intValue();
+        return isIntegral() ? (int) value : fraction.intValue();
     }
 
     public Fraction fractionValue() {
-        return fraction;
+        return isIntegral() ? new Fraction(Math.toIntExact(value)) : fraction;
     }
 
     public Scalar plus(int addend) {
@@ -59,7 +77,10 @@ public class Scalar implements MetricSpace<Scalar>, Comparable<Scalar> {
     }
 
     public Scalar plus(Scalar addend) {
-        return scalar(fraction.add(addend.fraction));
+        if (isIntegral() && addend.isIntegral()) {
+            return new Scalar(Math.addExact(value, addend.value));
+        }
+        return scalar(fractionValue().add(addend.fractionValue()));
     }
 
     public Scalar minus(int subtrahend) {
@@ -67,7 +88,10 @@ public class Scalar implements MetricSpace<Scalar>, Comparable<Scalar> {
     }
 
     public Scalar minus(Scalar subtrahend) {
-        return scalar(fraction.subtract(subtrahend.fraction));
+        if (isIntegral() && subtrahend.isIntegral()) {
+            return new Scalar(Math.subtractExact(value, subtrahend.value));
+        }
+        return scalar(fractionValue().subtract(subtrahend.fractionValue()));
     }
 
     public boolean isLessThan(Scalar other) {
@@ -88,23 +112,32 @@ public class Scalar implements MetricSpace<Scalar>, Comparable<Scalar> {
 
     @Override
     public int compareTo(Scalar other) {
-        return fraction.compareTo(other.fraction);
+        if (isIntegral() && other.isIntegral()) {
+            return Long.compare(value, other.value);
+        }
+        return fractionValue().compareTo(other.fractionValue());
     }
 
     public Scalar negated() {
-        return scalar(fraction.negate());
+        return isIntegral() ? new Scalar(Math.negateExact(value)) : scalar(fraction.negate());
     }
 
     public Scalar abs() {
-        return scalar(fraction.abs());
+        return isIntegral() ? new Scalar(Math.abs(value)) : scalar(fraction.abs());
     }
 
     public Scalar times(Scalar multiplicator) {
-        return scalar(fraction.multiply(multiplicator.fraction));
+        if (isIntegral() && multiplicator.isIntegral()) {
+            return new Scalar(Math.multiplyExact(value, multiplicator.value));
+        }
+        return scalar(fractionValue().multiply(multiplicator.fractionValue()));
     }
 
     public Scalar by(Scalar divisor) {
-        return scalar(fraction.divide(divisor.fraction));
+        if (isIntegral() && divisor.isIntegral() && divisor.value != 0 && value % divisor.value == 0) {
+            return new Scalar(value / divisor.value);
+        }
+        return scalar(fractionValue().divide(divisor.fractionValue()));
     }
 
     public Scalar min(Scalar other) {
@@ -0,0 +1,195 @@
+package net.itarray.automotion.internal.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Answers which of a list of rectangles intersect an area, or have a coordinate or extent in or out of
+ * a range, without visiting all of them. Intersections are looked up in a uniform grid, ranges are
+ * binary searched in indexes sorted by the asked key. Both are built on first use.
+ * Results are indexes into the list, in ascending order.
+ */
+public class SpatialIndex {
+
+    public enum Key { LEFT, TOP, RIGHT, BOTTOM, WIDTH, HEIGHT }
+
+    private final PackedRectangles rectangles;
+    private final Map<Key, int[]> sortedIndexes = new EnumMap<>(Key.class);
+    private Grid grid;
+
+    public SpatialIndex(PackedRectangles rectangles) {
+        this.rectangles = rectangles;
+    }
+
+    public PackedRectangles getRectangles() {
+        return rectangles;
+    }
+
+    /**
+     * The rectangles overlapping the area from (left, top) to (right, bottom), touching excluded.
+     */
+    public List<Integer> intersecting(int left, int top, int right, int bottom) {
+        if (rectangles.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (grid == null) {
+            grid = new Grid();
+        }
+        return grid.intersecting(left, top, right, bottom);
+    }
+
+    /**
+     * The rectangles whose key lies in the range from..to, both included.
+     */
+    public List<Integer> within(Key key, int from, int to) {
+        int[] sorted = sorted(key);
+        return ascending(sorted, lowerBound(key, sorted, from), lowerBound(key, sorted, to + 1L), sorted.length, sorted.length);
+    }
+
+    /**
+     * The rectangles whose key lies outside of the range from..to.
+     */
+    public List<Integer> outside(Key key, int from, int to) {
+        int[] sorted = sorted(key);
+        return ascending(sorted, 0, lowerBound(key, sorted, from), lowerBound(key, sorted, to + 1L), sorted.length);
+    }
+
+    public int value(Key key, int index) {
+        switch (key) {
+            case LEFT:
+                return rectangles.left(index);
+            case TOP:
+                return rectangles.top(index);
+            case RIGHT:
+                return rectangles.right(index);
+            case BOTTOM:
+                return rectangles.bottom(index);
+            case WIDTH:
+                return rectangles.width(index);
+            default:
+                return rectangles.height(index);
+        }
+    }
+
+    private int[] sorted(Key key) {
+        return sortedIndexes.computeIfAbsent(key, k -> IntStream.range(0, rectangles.size()).boxed()
+                .sorted((i, j) -> Integer.compare(value(k, i), value(k, j)))
+                .mapToInt(Integer::intValue)
+                .toArray());
+    }
+
+    private int lowerBound(Key key, int[] sorted, long bound) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (value(key, sorted[middle]) < bound) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static List<Integer> ascending(int[] sorted, int from, int to, int secondFrom, int secondTo) {
+        int[] indexes = new int[(to - from) + (secondTo - secondFrom)];
+        System.arraycopy(sorted, from, indexes, 0, to - from);
+        System.arraycopy(sorted, secondFrom, indexes, to - from, secondTo - secondFrom);
+        Arrays.sort(indexes);
+        List<Integer> result = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            result.add(index);
+        }
+        return result;
+    }
+
+    /**
+     * About one cell per rectangle; every rectangle is listed in all cells it covers.
+     */
+    private class Grid {
+        private final int minX;
+        private final int minY;
+        private final long cellWidth;
+        private final long cellHeight;
+        private final int columns;
+        private final int rows;
+        private final int[] cellStarts;
+        private final int[] cellItems;
+
+        private Grid() {
+            int size = rectangles.size();
+            int minX = Integer.MAX_VALUE;
+            int minY = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            int maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                minX = Math.min(minX, rectangles.left(i));
+                minY = Math.min(minY, rectangles.top(i));
+                maxX = Math.max(maxX, rectangles.right(i));
+                maxY = Math.max(maxY, rectangles.bottom(i));
+            }
+            this.minX = minX;
+            this.minY = minY;
+            int cellsPerAxis = Math.max(1, (int) Math.sqrt(size));
+            columns = cellsPerAxis;
+            rows = cellsPerAxis;
+            cellWidth = Math.max(1, ((long) maxX - minX + cellsPerAxis) / cellsPerAxis);
+            cellHeight = Math.max(1, ((long) maxY - minY + cellsPerAxis) / cellsPerAxis);
+
+            int[] counts = new int[columns * rows + 1];
+            for (int i = 0; i < size; i++) {
+                for (int row = row(rectangles.top(i)); row <= row(rectangles.bottom(i)); row++) {
+                    for (int column = column(rectangles.left(i)); column <= column(rectangles.right(i)); column++) {
+                        counts[row * columns + column + 1]++;
+                    }
+                }
+            }
+            for (int cell = 1; cell < counts.length; cell++) {
+                counts[cell] += counts[cell - 1];
+            }
+            cellStarts = counts.clone();
+            cellItems = new int[counts[counts.length - 1]];
+            for (int i = 0; i < size; i++) {
+                for (int row = row(rectangles.top(i)); row <= row(rectangles.bottom(i)); row++) {
+                    for (int column = column(rectangles.left(i)); column <= column(rectangles.right(i)); column++) {
+                        cellItems[counts[row * columns + column]++] = i;
+                    }
+                }
+            }
+        }
+
+        private List<Integer> intersecting(int left, int top, int right, int bottom) {
+            BitSet found = new BitSet(rectangles.size());
+            for (int row = row(Math.min(top, bottom)); row <= row(Math.max(top, bottom)); row++) {
+                for (int column = column(Math.min(left, right)); column <= column(Math.max(left, right)); column++) {
+                    int cell = row * columns + column;
+                    for (int item = cellStarts[cell]; item < cellStarts[cell + 1]; item++) {
+                        int i = cellItems[item];
+                        if (rectangles.left(i) < right && left < rectangles.right(i)
+                                && rectangles.top(i) < bottom && top < rectangles.bottom(i)) {
+                            found.set(i);
+                        }
+                    }
+                }
+            }
+            List<Integer> result = new ArrayList<>(found.cardinality());
+            found.stream().forEach(result::add);
+            return result;
+        }
+
+        private int column(int x) {
+            return (int) Math.max(0, Math.min(columns - 1, ((long) x - minX) / cellWidth));
+        }
+
+        private int row(int y) {
+            return (int) Math.max(0, Math.min(rows - 1, ((long) y - minY) / cellHeight));
+        }
+    }
+}
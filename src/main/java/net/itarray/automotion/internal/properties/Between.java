@@ -29,6 +29,14 @@ public class Between implements Condition<Scalar> {
         return lowerLimit.isSatisfiedOn(toBeConditioned, context, direction) && upperLimit.isSatisfiedOn(toBeConditioned, context, direction);
     }
 
+    Condition<Scalar> getLowerLimit() {
+        return lowerLimit;
+    }
+
+    Condition<Scalar> getUpperLimit() {
+        return upperLimit;
+    }
+
     @Override
     public <V extends MetricSpace<V>> String getDescription(Context context, ExtendGiving<V> direction) {
         return format(
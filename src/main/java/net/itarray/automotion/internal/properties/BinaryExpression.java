@@ -33,7 +33,7 @@ public class BinaryExpression<L, R, T> implements Expression<T> {
 
     public <V extends MetricSpace<V>> String getDescription(Context context, ExtendGiving<V> direction) {
         String toleranceDescription = context.getTolerance().equals(scalar(0)) ? "" : String.format(" (With tolerance %s).", context.getTolerance());
-        L t = left.evaluateIn(context, direction);
+        L t = context.valueOf(left, direction);
         return String.format(descriptionFormat,
                 left.getDescription(context, direction),
                 right.getDescription(context, direction),
@@ -31,6 +31,14 @@ public class BinaryScalarConditionWithFixedOperand implements Condition<Scalar>
                 "Expected %1$s to be " + toStringFormat + ". Actual %3$s is: %4$s");
     }
 
+    Expression<Scalar> getFixedOperand() {
+        return fixedOperand;
+    }
+
+    ContextBiFunction<Scalar, Scalar, Boolean> getContextPredicate() {
+        return contextPredicate;
+    }
+
     @Override
     public <V extends MetricSpace<V>> String getDescription(Context context, ExtendGiving<V> direction) {
         String tolerance = context.getTolerance().equals(scalar(0)) ? "" : format("(~%s)", context.getTolerance());
@@ -0,0 +1,240 @@
+package net.itarray.automotion.internal.properties;
+
+import net.itarray.automotion.internal.UIElement;
+import net.itarray.automotion.internal.geometry.ExtendGiving;
+import net.itarray.automotion.internal.geometry.MetricSpace;
+import net.itarray.automotion.internal.geometry.Rectangle;
+import net.itarray.automotion.internal.geometry.Scalar;
+import net.itarray.automotion.internal.geometry.Vector;
+import net.itarray.automotion.validation.properties.Condition;
+import net.itarray.automotion.validation.properties.Expression;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A condition laid out flat: every node gets a slot and the nodes are evaluated in order, operands
+ * before the nodes using them, so each value is computed once. Slot 0 holds the value to be
+ * conditioned. Validators compile a condition once and share its program between all rules checking it,
+ * see {@link Context#compiled(Condition)}; descriptions are only rendered for violations, from the values
+ * in the slots.
+ */
+public class CompiledCondition<T> {
+
+    private static final int ARGUMENT = 0;
+    private static final int OPERAND = 1;
+    private static final int APPLY = 2;
+    private static final int AND = 3;
+    private static final int CONDITION = 4;
+
+    private final int[] opcodes;
+    private final int[] lefts;
+    private final int[] rights;
+    private final Object[] operands;
+    private final int result;
+
+    private CompiledCondition(int[] opcodes, int[] lefts, int[] rights, Object[] operands, int result) {
+        this.opcodes = opcodes;
+        this.lefts = lefts;
+        this.rights = rights;
+        this.operands = operands;
+        this.result = result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> CompiledCondition<T> compile(Condition<T> condition) {
+        return (CompiledCondition<T>) new Compiler(condition).compile();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V extends MetricSpace<V>> Evaluation evaluate(Expression<T> argument, Context context, ExtendGiving<V> direction) {
+        Object[] slots = new Object[opcodes.length];
+        slots[0] = argument.evaluateIn(context, direction);
+        for (int i = 1; i < opcodes.length; i++) {
+            switch (opcodes[i]) {
+                case OPERAND:
+                    slots[i] = ((Expression<?>) operands[i]).evaluateIn(context, direction);
+                    break;
+                case APPLY:
+                    slots[i] = ((ContextBiFunction<Object, Object, Boolean>) operands[i]).apply(slots[lefts[i]], slots[rights[i]], context);
+                    break;
+                case AND:
+                    slots[i] = (Boolean) slots[lefts[i]] && (Boolean) slots[rights[i]];
+                    break;
+                default:
+                    slots[i] = ((Condition<T>) operands[i]).isSatisfiedOn(argument, context, direction);
+            }
+        }
+        return new Evaluation(argument, slots, context);
+    }
+
+    public class Evaluation {
+        private final Expression<T> argument;
+        private final Object[] slots;
+        private final Context context;
+
+        private Evaluation(Expression<T> argument, Object[] slots, Context context) {
+            this.argument = argument;
+            this.slots = slots;
+            this.context = context;
+        }
+
+        public boolean isSatisfied() {
+            return (Boolean) slots[result];
+        }
+
+        @SuppressWarnings("unchecked")
+        public T getValue() {
+            return (T) slots[0];
+        }
+
+        /**
+         * A context to describe a violation in, answering the values of this evaluation.
+         */
+        public Context describing() {
+            Map<Expression<?>, Object> values = new IdentityHashMap<>();
+            values.put(argument, slots[0]);
+            for (int i = 1; i < slots.length; i++) {
+                if (opcodes[i] == OPERAND) {
+                    values.put((Expression<?>) operands[i], slots[i]);
+                }
+            }
+            return new DescribingContext(context, values);
+        }
+    }
+
+    /**
+     * Lays out the nodes of a condition in slots. The nodes of the conditions built by {@link Condition}
+     * are known; other conditions are evaluated as a whole. An operand used more than once gets one slot.
+     */
+    private static class Compiler {
+        private final Condition<?> condition;
+        private final List<Integer> opcodes = new ArrayList<>();
+        private final List<Integer> lefts = new ArrayList<>();
+        private final List<Integer> rights = new ArrayList<>();
+        private final List<Object> operands = new ArrayList<>();
+        private final Map<Expression<?>, Integer> operandSlots = new IdentityHashMap<>();
+
+        private Compiler(Condition<?> condition) {
+            this.condition = condition;
+            add(ARGUMENT, null, 0, 0);
+        }
+
+        private CompiledCondition<?> compile() {
+            int result = compile(condition, 0);
+            return new CompiledCondition<>(
+                    opcodes.stream().mapToInt(Integer::intValue).toArray(),
+                    lefts.stream().mapToInt(Integer::intValue).toArray(),
+                    rights.stream().mapToInt(Integer::intValue).toArray(),
+                    operands.toArray(),
+                    result);
+        }
+
+        /**
+         * Lays out the condition on the value in the slot toBeConditioned and answers the slot of its result.
+         */
+        private int compile(Condition<?> condition, int toBeConditioned) {
+            if (condition instanceof Between) {
+                Between between = (Between) condition;
+                return add(AND, null, compile(between.getLowerLimit(), toBeConditioned), compile(between.getUpperLimit(), toBeConditioned));
+            }
+            if (condition instanceof BinaryScalarConditionWithFixedOperand) {
+                BinaryScalarConditionWithFixedOperand binary = (BinaryScalarConditionWithFixedOperand) condition;
+                return add(APPLY, binary.getContextPredicate(), toBeConditioned, operand(binary.getFixedOperand()));
+            }
+            return add(CONDITION, condition, 0, 0);
+        }
+
+        private int operand(Expression<?> operand) {
+            Integer slot = operandSlots.get(operand);
+            if (slot == null) {
+                slot = add(OPERAND, operand, 0, 0);
+                operandSlots.put(operand, slot);
+            }
+            return slot;
+        }
+
+        private int add(int opcode, Object operand, int left, int right) {
+            opcodes.add(opcode);
+            operands.add(operand);
+            lefts.add(left);
+            rights.add(right);
+            return opcodes.size() - 1;
+        }
+    }
+
+    private static class DescribingContext implements Context {
+
+        private final Context context;
+        private final Map<Expression<?>, Object> values;
+
+        private DescribingContext(Context context, Map<Expression<?>, Object> values) {
+            this.context = context;
+            this.values = values;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T, V extends MetricSpace<V>> T valueOf(Expression<T> expression, ExtendGiving<V> direction) {
+            T value = (T) values.get(expression);
+            return value != null ? value : expression.evaluateIn(this, direction);
+        }
+
+        @Override
+        public Rectangle getPageRectangle() {
+            return context.getPageRectangle();
+        }
+
+        @Override
+        public Scalar pagePercentage(Scalar percentage, ExtendGiving<?> direction) {
+            return context.pagePercentage(percentage, direction);
+        }
+
+        @Override
+        public boolean isPixels() {
+            return context.isPixels();
+        }
+
+        @Override
+        public Scalar getTolerance() {
+            return context.getTolerance();
+        }
+
+        @Override
+        public void add(String message) {
+            context.add(message);
+        }
+
+        @Override
+        public void draw(UIElement element) {
+            context.draw(element);
+        }
+
+        @Override
+        public void drawRoot(UIElement element) {
+            context.drawRoot(element);
+        }
+
+        @Override
+        public void drawHorizontalLine(Vector onLine) {
+            context.drawHorizontalLine(onLine);
+        }
+
+        @Override
+        public void drawVerticalLine(Vector onLine) {
+            context.drawVerticalLine(onLine);
+        }
+
+        @Override
+        public int errorCount() {
+            return context.errorCount();
+        }
+
+        @Override
+        public <T> CompiledCondition<T> compiled(Condition<T> condition) {
+            return context.compiled(condition);
+        }
+    }
+}
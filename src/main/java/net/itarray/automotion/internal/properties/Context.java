@@ -1,9 +1,13 @@
 package net.itarray.automotion.internal.properties;
 
 import net.itarray.automotion.internal.UIElement;
+import net.itarray.automotion.internal.geometry.ExtendGiving;
+import net.itarray.automotion.internal.geometry.MetricSpace;
 import net.itarray.automotion.internal.geometry.Rectangle;
 import net.itarray.automotion.internal.geometry.Scalar;
 import net.itarray.automotion.internal.geometry.Vector;
+import net.itarray.automotion.validation.properties.Condition;
+import net.itarray.automotion.validation.properties.Expression;
 
 public interface Context {
     Rectangle getPageRectangle();
@@ -15,4 +19,26 @@ public interface Context {
     default void drawHorizontalLine(Vector onLine) {}
     default void drawVerticalLine(Vector onLine) {}
     int errorCount();
+
+    /**
+     * A percentage of the page in pixels. Contexts of a snapshot answer it from values resolved before.
+     */
+    default Scalar pagePercentage(Scalar percentage, ExtendGiving<?> direction) {
+        return PagePercentages.resolve(percentage, direction, getPageRectangle());
+    }
+
+    /**
+     * The value of an expression to describe it with. Contexts describing a violation answer the values
+     * evaluated before.
+     */
+    default <T, V extends MetricSpace<V>> T valueOf(Expression<T> expression, ExtendGiving<V> direction) {
+        return expression.evaluateIn(this, direction);
+    }
+
+    /**
+     * The program of a condition. Contexts of a validator compile each condition once for all of its rules.
+     */
+    default <T> CompiledCondition<T> compiled(Condition<T> condition) {
+        return CompiledCondition.compile(condition);
+    }
 }
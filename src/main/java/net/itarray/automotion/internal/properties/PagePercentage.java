@@ -3,12 +3,9 @@ package net.itarray.automotion.internal.properties;
 import net.itarray.automotion.internal.geometry.Direction;
 import net.itarray.automotion.internal.geometry.ExtendGiving;
 import net.itarray.automotion.internal.geometry.MetricSpace;
-import net.itarray.automotion.internal.geometry.Rectangle;
 import net.itarray.automotion.internal.geometry.Scalar;
 import net.itarray.automotion.validation.properties.Expression;
 
-import static net.itarray.automotion.internal.geometry.Scalar.scalar;
-
 public class PagePercentage implements Expression<Scalar> {
     private final Scalar percentage;
 
@@ -18,14 +15,12 @@ public class PagePercentage implements Expression<Scalar> {
 
     @Override
     public <V extends MetricSpace<V>> Scalar evaluateIn(Context context, ExtendGiving<V> direction) {
-        Rectangle page = context.getPageRectangle();
-        Scalar screenExtend = direction.extend(page).norm(); // todo: behaviour for Vectors
-        return percentage.times(screenExtend).by(scalar(100));
+        return context.pagePercentage(percentage, direction);
     }
 
     @Override
     public <V extends MetricSpace<V>> String getDescription(Context context, ExtendGiving<V> direction) {
-        return String.format("%s%% of page (%spx)", percentage, evaluateIn(context, direction));
+        return String.format("%s%% of page (%spx)", percentage, context.valueOf(this, direction));
     }
 
     @Override
@@ -0,0 +1,40 @@
+package net.itarray.automotion.internal.properties;
+
+import net.itarray.automotion.internal.geometry.ExtendGiving;
+import net.itarray.automotion.internal.geometry.Rectangle;
+import net.itarray.automotion.internal.geometry.Scalar;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static net.itarray.automotion.internal.geometry.Scalar.scalar;
+
+/**
+ * Percentages of one page in pixels. Each percentage is resolved once per direction; a snapshot shares
+ * the resolved values with all its validators.
+ */
+public class PagePercentages {
+
+    private static final Scalar HUNDRED = scalar(100);
+
+    private final Rectangle page;
+    private final Map<ExtendGiving<?>, Map<Scalar, Scalar>> resolved = new HashMap<>();
+
+    public PagePercentages(Rectangle page) {
+        this.page = page;
+    }
+
+    public Rectangle getPage() {
+        return page;
+    }
+
+    public Scalar resolve(Scalar percentage, ExtendGiving<?> direction) {
+        return resolved.computeIfAbsent(direction, d -> new HashMap<>())
+                .computeIfAbsent(percentage, p -> resolve(p, direction, page));
+    }
+
+    public static Scalar resolve(Scalar percentage, ExtendGiving<?> direction, Rectangle page) {
+        Scalar pageExtend = direction.extend(page).norm(); // todo: behaviour for Vectors
+        return percentage.times(pageExtend).by(HUNDRED);
+    }
+}
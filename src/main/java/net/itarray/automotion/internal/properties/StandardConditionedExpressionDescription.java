@@ -11,7 +11,7 @@ public class StandardConditionedExpressionDescription<T> extends ConditionedExpr
     }
 
     public <V extends MetricSpace<V>> String describe(Context context, ExtendGiving<V> direction) {
-        T t = toBeConditioned.evaluateIn(context, direction);
+        T t = context.valueOf(toBeConditioned, direction);
         return String.format("Expected %s to be %s. Actual %s is: %s",
                 toBeConditioned.getDescription(context, direction),
                 toBeApplied.getDescription(context, direction),
@@ -15,7 +15,7 @@ public class SuccessorConditionedExpressionDescription<T, V extends MetricSpace<
 
 
     public <V extends MetricSpace<V>> String describe(Context context, ExtendGiving<V> extendGiving) {
-        T t = toBeConditioned.evaluateIn(context, extendGiving);
+        T t = context.valueOf(toBeConditioned, extendGiving);
         return String.format(direction.afterName() + " element aligned not properly. Expected margin should be %s. Actual margin is %s",
                 toBeApplied.getDescription(context, extendGiving),
                 (t instanceof MetricSpace) ? ((MetricSpace) t).toStringWithUnits("px") : t);
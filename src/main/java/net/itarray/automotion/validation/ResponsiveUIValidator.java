@@ -7,8 +7,15 @@ import net.itarray.automotion.validation.properties.Zoom;
 import org.openqa.selenium.WebDriver;
 
 import java.awt.*;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import static net.itarray.automotion.internal.geometry.Scalar.scalar;
 
@@ -17,13 +24,18 @@ public class ResponsiveUIValidator {
     protected final DriverFacade driver;
 
     private boolean withReport = true;
-    private final List<String> jsonFiles = new ArrayList<>();
+    private boolean chunkRulesInBrowser = false;
+    private ForkJoinPool chunkRulesPool;
+    private final Queue<String> jsonFiles = new ConcurrentLinkedQueue<>();
     private net.itarray.automotion.validation.Units units = net.itarray.automotion.validation.Units.PX;
 
     private boolean mobileTopBarOffsetState = false;
     private double mobileTopBarOffset = 20;
-    private final DrawingConfiguration drawingConfiguration = new DrawingConfiguration();
+    private final DrawingConfiguration drawingConfiguration;
+    private final ArtifactWriter artifacts;
     private double scaleFactor = 1;
+    private int headerCutPx;
+    private int footerCutPx;
     private Scalar tolerance = scalar(0);
 
     public ResponsiveUIValidator(WebDriver driver) {
@@ -33,6 +45,39 @@ public class ResponsiveUIValidator {
 
     public ResponsiveUIValidator(DriverFacade driver) {
         this.driver = driver;
+        this.drawingConfiguration = new DrawingConfiguration();
+        this.artifacts = new ArtifactWriter();
+    }
+
+    private ResponsiveUIValidator(DriverFacade driver, ResponsiveUIValidator settings) {
+        this.driver = driver;
+        this.drawingConfiguration = settings.drawingConfiguration;
+        this.artifacts = settings.artifacts;
+        this.withReport = settings.withReport;
+        this.chunkRulesInBrowser = settings.chunkRulesInBrowser;
+        this.chunkRulesPool = settings.chunkRulesPool;
+        this.units = settings.units;
+        this.mobileTopBarOffsetState = settings.mobileTopBarOffsetState;
+        this.mobileTopBarOffset = settings.mobileTopBarOffset;
+        this.scaleFactor = settings.scaleFactor;
+        this.headerCutPx = settings.headerCutPx;
+        this.footerCutPx = settings.footerCutPx;
+        this.tolerance = settings.tolerance;
+    }
+
+    /**
+     * A validator with the settings of this one that validates on another driver. Its results are not
+     * added to the report of this one.
+     */
+    public ResponsiveUIValidator onDriver(DriverFacade driver) {
+        return new ResponsiveUIValidator(driver, this);
+    }
+
+    /**
+     * Run specs for combinations of resolutions and zooms on a pool of drivers, reporting to this validator.
+     */
+    public SnapshotMatrix snapshotMatrix(List<DriverFacade> drivers) {
+        return new SnapshotMatrix(this, drivers);
     }
 
     public UISnapshot snapshot(String name) {
@@ -91,9 +136,58 @@ public class ResponsiveUIValidator {
         withReport = false;
     }
 
+    public boolean isEvaluatingChunkRulesInBrowser() {
+        return chunkRulesInBrowser;
+    }
+
+    /**
+     * Evaluate doNotOverlap, areTopAligned, haveEqualSize and alignedAsGrid of element lists in the browser.
+     * Only violating elements are transferred. Drivers that cannot execute scripts keep evaluating locally.
+     */
+    public ResponsiveUIValidator evaluateChunkRulesInBrowser() {
+        chunkRulesInBrowser = true;
+        return this;
+    }
+
+    public ResponsiveUIValidator evaluateChunkRulesLocally() {
+        chunkRulesInBrowser = false;
+        return this;
+    }
+
+    public ForkJoinPool getChunkRulesPool() {
+        return chunkRulesPool;
+    }
+
+    /**
+     * Split locally evaluated rules of large element lists across the given pool.
+     * Errors are reported in the same order as evaluating the rules sequentially.
+     */
+    public ResponsiveUIValidator evaluateChunkRulesInParallel(ForkJoinPool pool) {
+        chunkRulesPool = pool;
+        return this;
+    }
+
+    public ResponsiveUIValidator evaluateChunkRulesInParallel() {
+        return evaluateChunkRulesInParallel(ForkJoinPool.commonPool());
+    }
+
+    public ResponsiveUIValidator evaluateChunkRulesSequentially() {
+        chunkRulesPool = null;
+        return this;
+    }
+
     public void addJsonFile(String jsonFileName) {
         jsonFiles.add(jsonFileName);
     }
+
+    /**
+     * Snapshots validated concurrently add their results without locking; the report is built from the
+     * results added so far.
+     */
+    public List<String> getJsonFiles() {
+        return new ArrayList<>(jsonFiles);
+    }
+
     /**
      * Call method to generate HTML report
      */
@@ -102,13 +196,23 @@ public class ResponsiveUIValidator {
     }
 
     /**
-     * Call method to generate HTML report with specified file report name
+     * Call method to generate HTML report with specified file report name.
+     * The report is built from the results that could be written; files that could not be written
+     * are reported afterwards, all in one exception.
      *
      * @param name
      */
     public void generateReport(String name) {
+        Map<File, Throwable> failures = artifacts.awaitAll();
         if (isWithReport() && !jsonFiles.isEmpty()) {
-            new HtmlReportBuilder().buildReport(name, jsonFiles);
+            Set<String> unwritten = failures.keySet().stream().map(File::getName).collect(Collectors.toSet());
+            List<String> written = getJsonFiles().stream().filter(file -> !unwritten.contains(file)).collect(Collectors.toList());
+            if (!written.isEmpty()) {
+                new HtmlReportBuilder().buildReport(name, written);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw ArtifactWriter.failure(failures);
         }
     }
 
@@ -168,7 +272,11 @@ public class ResponsiveUIValidator {
      * @param px
      */
     public void setHeaderCutPx(int px) {
-        System.setProperty("headerCutPx", String.valueOf(px));
+        headerCutPx = px;
+    }
+
+    public int getHeaderCutPx() {
+        return headerCutPx;
     }
 
     /**
@@ -177,7 +285,11 @@ public class ResponsiveUIValidator {
      * @param px
      */
     public void setFooterCutPx(int px) {
-        System.setProperty("footerCutPx", String.valueOf(px));
+        footerCutPx = px;
+    }
+
+    public int getFooterCutPx() {
+        return footerCutPx;
     }
 
     /**
@@ -245,6 +357,13 @@ public class ResponsiveUIValidator {
         return drawingConfiguration;
     }
 
+    /**
+     * Screenshots, drawings and results are written in the background; {@link #generateReport()} waits for them.
+     */
+    public ArtifactWriter getArtifacts() {
+        return artifacts;
+    }
+
     public DriverFacade getDriver() {
         return driver;
     }
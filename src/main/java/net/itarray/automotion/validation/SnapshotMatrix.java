@@ -0,0 +1,103 @@
+package net.itarray.automotion.validation;
+
+import net.itarray.automotion.internal.DriverFacade;
+import net.itarray.automotion.internal.ResolutionUnknown;
+import net.itarray.automotion.internal.ZoomUnknown;
+import net.itarray.automotion.validation.properties.Resolution;
+import net.itarray.automotion.validation.properties.Zoom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+
+/**
+ * Runs a spec on a snapshot for every combination of resolutions and zooms. The combinations are
+ * spread over a pool of drivers: a work stealing pool with one worker per driver runs them, and every
+ * combination is validated on whichever driver is idle. The results are added to the report of the
+ * validator in the order of the combinations, resolutions first, whatever the order they completed in.
+ * Without resolutions each driver keeps its current one; without zooms each driver keeps its current
+ * zoom, like {@link ResponsiveUIValidator#snapshot(String, Resolution)} does.
+ */
+public class SnapshotMatrix {
+
+    private final ResponsiveUIValidator validator;
+    private final List<DriverFacade> drivers;
+    private final List<Resolution> resolutions = new ArrayList<>();
+    private final List<Zoom> zooms = new ArrayList<>();
+
+    public SnapshotMatrix(ResponsiveUIValidator validator, List<DriverFacade> drivers) {
+        if (drivers.isEmpty()) {
+            throw new IllegalArgumentException("a snapshot matrix needs at least one driver");
+        }
+        this.validator = validator;
+        this.drivers = new ArrayList<>(drivers);
+    }
+
+    public SnapshotMatrix withResolutions(Resolution... resolutions) {
+        this.resolutions.addAll(Arrays.asList(resolutions));
+        return this;
+    }
+
+    public SnapshotMatrix withZooms(Zoom... zooms) {
+        this.zooms.addAll(Arrays.asList(zooms));
+        return this;
+    }
+
+    /**
+     * @param name the name of the snapshots
+     * @param spec validates a snapshot and answers whether it is valid
+     * @return whether all snapshots are valid
+     */
+    public boolean run(String name, Predicate<UISnapshot> spec) {
+        BlockingQueue<DriverFacade> idleDrivers = new ArrayBlockingQueue<>(drivers.size(), false, drivers);
+        ForkJoinPool pool = new ForkJoinPool(drivers.size());
+        try {
+            List<ForkJoinTask<Result>> results = new ArrayList<>();
+            for (Resolution resolution : orDefault(resolutions, new ResolutionUnknown())) {
+                for (Zoom zoom : orDefault(zooms, new ZoomUnknown())) {
+                    results.add(pool.submit(() -> run(idleDrivers, name, resolution, zoom, spec)));
+                }
+            }
+            boolean valid = true;
+            for (ForkJoinTask<Result> result : results) {
+                Result completed = result.join();
+                completed.jsonFiles.forEach(validator::addJsonFile);
+                valid &= completed.valid;
+            }
+            return valid;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static <T> List<T> orDefault(List<T> values, T defaultValue) {
+        return values.isEmpty() ? Collections.singletonList(defaultValue) : values;
+    }
+
+    private Result run(BlockingQueue<DriverFacade> idleDrivers, String name, Resolution resolution, Zoom zoom, Predicate<UISnapshot> spec) throws InterruptedException {
+        DriverFacade driver = idleDrivers.take();
+        try {
+            ResponsiveUIValidator onDriver = validator.onDriver(driver);
+            boolean valid = spec.test(onDriver.snapshot(name, resolution, zoom));
+            return new Result(valid, onDriver.getJsonFiles());
+        } finally {
+            idleDrivers.add(driver);
+        }
+    }
+
+    private static class Result {
+        private final boolean valid;
+        private final List<String> jsonFiles;
+
+        private Result(boolean valid, List<String> jsonFiles) {
+            this.valid = valid;
+            this.jsonFiles = jsonFiles;
+        }
+    }
+}
@@ -1,28 +1,51 @@
 package net.itarray.automotion.validation;
 
 import net.itarray.automotion.internal.DrawableScreenshot;
+import net.itarray.automotion.internal.DriverFacade;
+import net.itarray.automotion.internal.LayoutRecording;
 import net.itarray.automotion.internal.ResponsiveUIChunkValidatorBase;
+import net.itarray.automotion.internal.SnapshotElements;
 import net.itarray.automotion.internal.UIValidatorBase;
+import net.itarray.automotion.internal.geometry.Rectangle;
+import net.itarray.automotion.internal.geometry.Vector;
+import net.itarray.automotion.internal.properties.PagePercentages;
 import net.itarray.automotion.validation.properties.Resolution;
 import net.itarray.automotion.validation.properties.Zoom;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
 import org.openqa.selenium.WebElement;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class UISnapshot {
 
+    /**
+     * The computed styles captured by {@link #captureLayout()}: those commonly checked by css
+     * validations. Styles that are not captured are retrieved when they are checked.
+     */
+    public static final List<String> DEFAULT_CSS_PROPERTIES = Collections.unmodifiableList(Arrays.asList(
+            "color", "background-color", "border-color", "display", "visibility", "opacity",
+            "font-family", "font-size", "font-weight", "text-align"));
+
     private final ResponsiveUIValidator responsiveUIValidator;
     private final String name;
     private final Resolution resolution;
     private final Zoom zoom;
+    private final SnapshotElements elements;
     private File screenshotName;
+    private Vector screenshotExtend;
+    private Dimension pageSize;
+    private PagePercentages pagePercentages;
 
     public UISnapshot(ResponsiveUIValidator responsiveUIValidator, String name, Resolution resolution, Zoom zoom) {
         this.responsiveUIValidator = responsiveUIValidator;
         this.name = name;
         this.resolution = resolution.queryIfUnknown(responsiveUIValidator.driver);
         this.zoom = zoom.queryIfUnknown(responsiveUIValidator.driver);
+        this.elements = new SnapshotElements(responsiveUIValidator.getDriver());
         if (!responsiveUIValidator.getDriver().isAppiumContext()) {
             resolution.applyTo(responsiveUIValidator.driver);
             zoom.applyTo(responsiveUIValidator.driver);
@@ -45,10 +68,89 @@ public class UISnapshot {
         return responsiveUIValidator;
     }
 
+    /**
+     * The page size is retrieved once per snapshot and shared by all its validators.
+     */
+    public Dimension getPageSize() {
+        if (pageSize == null) {
+            pageSize = responsiveUIValidator.getDriver().retrievePageSize();
+        }
+        return pageSize;
+    }
+
+    /**
+     * Percentages of the page are resolved against the page size once per snapshot.
+     */
+    public PagePercentages getPagePercentages() {
+        if (pagePercentages == null) {
+            Dimension pageSize = getPageSize();
+            pagePercentages = new PagePercentages(new Rectangle(0, 0, pageSize.getWidth(), pageSize.getHeight()));
+        }
+        return pagePercentages;
+    }
+
+    public SnapshotElements getElements() {
+        return elements;
+    }
+
+    /**
+     * Captures geometry and the {@link #DEFAULT_CSS_PROPERTIES} of the whole page in a single round-trip.
+     * Later validations of this snapshot resolve captured elements from memory, so the page must not
+     * change afterwards.
+     */
+    public UISnapshot captureLayout() {
+        return captureLayout("html", DEFAULT_CSS_PROPERTIES.toArray(new String[0]));
+    }
+
+    /**
+     * Captures geometry and the given computed styles (none, if none are given) of the elements matching
+     * the css selector and of their descendants in a single round-trip.
+     */
+    public UISnapshot captureLayout(String cssSelector, String... cssPropertyNames) {
+        elements.captureLayout(cssSelector, Arrays.asList(cssPropertyNames));
+        return this;
+    }
+
+    /**
+     * Writes the captured layout - the whole page, if none was captured yet - together with resolution,
+     * zoom and page size to a file that can be replayed by {@link net.itarray.automotion.internal.ReplayDriverFacade}.
+     */
+    public UISnapshot recordLayout(File file) {
+        DriverFacade driver = responsiveUIValidator.getDriver();
+        if (!driver.isBatchedCaptureSupported()) {
+            throw new IllegalStateException("layouts can only be recorded by drivers that execute scripts");
+        }
+        if (elements.getLayout().size() == 0) {
+            captureLayout();
+        }
+        LayoutRecording.write(file, elements.getLayout(), driver.getResolution(), driver.getZoom(), getPageSize());
+        return this;
+    }
+
     public UIElementValidator findElement(WebElement webElement, String readableNameOfElement) {
         return new UIValidatorBase(this, webElement, readableNameOfElement);
     }
 
+    /**
+     * Locates the element by the given locator. If it becomes stale before its geometry is retrieved it
+     * is located again.
+     */
+    public UIElementValidator findElement(By locator, String readableNameOfElement) {
+        return findElement(elements.findElement(locator), readableNameOfElement);
+    }
+
+    public ChunkUIElementValidator findElements(By locator) {
+        return findOneOrMoreElements(locator);
+    }
+
+    public ChunkUIElementValidator findOneOrMoreElements(By locator) {
+        return findOneOrMoreElements(elements.findElements(locator));
+    }
+
+    public ChunkUIElementValidator findZeroOrMoreElements(By locator) {
+        return findZeroOrMoreElements(elements.findElements(locator));
+    }
+
     public ChunkUIElementValidator findElements(List<WebElement> webElements) {
         return findOneOrMoreElements(webElements);
     }
@@ -63,8 +165,19 @@ public class UISnapshot {
 
     public File takeScreenshot() {
         if (screenshotName == null) {
-            screenshotName = DrawableScreenshot.takeScreenshot(responsiveUIValidator.getDriver(), getName());
+            File file = DrawableScreenshot.screenshotFile(getName());
+            screenshotExtend = responsiveUIValidator.getDriver().takeScreenshot(file,
+                    responsiveUIValidator.getHeaderCutPx(), responsiveUIValidator.getFooterCutPx(), responsiveUIValidator.getArtifacts());
+            screenshotName = file;
         }
         return screenshotName;
     }
+
+    /**
+     * The size of the screenshot, kept from taking it, so it is not read back from its file.
+     */
+    public Vector getScreenshotExtend() {
+        takeScreenshot();
+        return screenshotExtend;
+    }
 }
@@ -110,7 +110,7 @@ public class ResponsiveUIValidator {
      * @param px
      */
     public void setHeaderCutPx(int px) {
-        System.setProperty("headerCutPx", String.valueOf(px));
+        responsiveUIValidator.setHeaderCutPx(px);
     }
 
     /**
@@ -119,7 +119,7 @@ public class ResponsiveUIValidator {
      * @param px
      */
     public void setFooterCutPx(int px) {
-        System.setProperty("footerCutPx", String.valueOf(px));
+        responsiveUIValidator.setFooterCutPx(px);
     }
 
     public boolean isMobileTopBarOffset() {
@@ -0,0 +1,88 @@
+package net.itarray.automotion.tests;
+
+import net.itarray.automotion.internal.ArtifactWriter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ArtifactWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ArtifactWriter artifacts;
+
+    @Before
+    public void setUp() {
+        artifacts = new ArtifactWriter();
+    }
+
+    @Test
+    public void awaitedFilesAreWritten() throws IOException {
+        File file = new File(folder.getRoot(), "result.json");
+
+        artifacts.write(file, f -> Files.write(f.toPath(), "{}".getBytes(StandardCharsets.UTF_8)));
+        artifacts.await(file);
+
+        assertThat(file).hasContent("{}");
+    }
+
+    @Test
+    public void flushWaitsForAllWritesBeyondTheQueueCapacity() {
+        for (int i = 0; i < 100; i++) {
+            artifacts.write(new File(folder.getRoot(), i + ".txt"), f -> Files.write(f.toPath(), f.getName().getBytes(StandardCharsets.UTF_8)));
+        }
+
+        artifacts.flush();
+
+        assertThat(folder.getRoot().listFiles()).hasSize(100);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void failedWritesAreReportedOnFlush() {
+        artifacts.write(new File(folder.getRoot(), "failing.png"), f -> {
+            throw new IOException("disk full");
+        });
+
+        artifacts.flush();
+    }
+
+    @Test
+    public void allFailedWritesAreNamedInOneExceptionAfterTheOthersAreWritten() {
+        artifacts.write(new File(folder.getRoot(), "first.png"), f -> {
+            throw new IOException("disk full");
+        });
+        artifacts.write(new File(folder.getRoot(), "written.json"), f -> Files.write(f.toPath(), "{}".getBytes(StandardCharsets.UTF_8)));
+        artifacts.write(new File(folder.getRoot(), "second.png"), f -> {
+            throw new IOException("disk full");
+        });
+
+        assertThatThrownBy(() -> artifacts.flush())
+                .hasMessageContaining("first.png (disk full)")
+                .hasMessageContaining("second.png (disk full)");
+        assertThat(new File(folder.getRoot(), "written.json")).hasContent("{}");
+    }
+
+    @Test
+    public void awaitAllAnswersTheFailedWrites() {
+        File failing = new File(folder.getRoot(), "failing.png");
+        artifacts.write(failing, f -> {
+            throw new IOException("disk full");
+        });
+
+        Map<File, Throwable> failures = artifacts.awaitAll();
+
+        assertThat(failures).containsOnlyKeys(failing);
+        assertThat(failures.get(failing)).hasMessage("disk full");
+    }
+}
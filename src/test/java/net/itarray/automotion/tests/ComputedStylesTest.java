@@ -0,0 +1,90 @@
+package net.itarray.automotion.tests;
+
+import net.itarray.automotion.internal.CSSSource;
+import net.itarray.automotion.internal.ComputedStyles;
+import net.itarray.automotion.internal.DriverFacade;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ComputedStylesTest {
+
+    private JavascriptExecutor executor;
+    private ComputedStyles computedStyles;
+    private WebElement first;
+    private WebElement second;
+
+    @Before
+    public void setUp() {
+        WebDriver webDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        executor = (JavascriptExecutor) webDriver;
+        computedStyles = new ComputedStyles(new DriverFacade(webDriver));
+        first = mock(WebElement.class);
+        second = mock(WebElement.class);
+    }
+
+    @Test
+    public void aPropertyIsRetrievedForAllElementsOfTheBatchInOneScript() {
+        when(executor.executeScript(anyString(), any(), any())).thenReturn(Arrays.asList(
+                Collections.singletonList("rgba(0, 0, 0, 1)"),
+                Collections.singletonList("rgba(255, 255, 255, 1)")));
+        List<WebElement> batch = Arrays.asList(first, second);
+        CSSSource firstSource = computedStyles.cssSourceOf(first, batch);
+        CSSSource secondSource = computedStyles.cssSourceOf(second, batch);
+
+        assertThat(firstSource.getCssValue("color")).isEqualTo("rgba(0, 0, 0, 1)");
+        assertThat(secondSource.getCssValue("color")).isEqualTo("rgba(255, 255, 255, 1)");
+        assertThat(firstSource.getCssValue("color")).isEqualTo("rgba(0, 0, 0, 1)");
+
+        verify(executor, times(1)).executeScript(anyString(), any(), any());
+        verifyZeroInteractions(first, second);
+    }
+
+    @Test
+    public void eachPropertyIsRetrievedOnlyOnce() {
+        when(executor.executeScript(anyString(), any(), any())).thenReturn(
+                Collections.singletonList(Collections.singletonList("10px")),
+                Collections.singletonList(Collections.singletonList("block")));
+        CSSSource source = computedStyles.cssSourceOf(first);
+
+        assertThat(source.getCssValue("padding")).isEqualTo("10px");
+        assertThat(source.getCssValue("display")).isEqualTo("block");
+        assertThat(source.getCssValue("padding")).isEqualTo("10px");
+
+        verify(executor, times(2)).executeScript(anyString(), any(), any());
+    }
+
+    @Test
+    public void elementsOfOtherBatchesAreNotRetrieved() {
+        WebElement other = mock(WebElement.class);
+        computedStyles.cssSourceOf(other, Collections.singletonList(other));
+        when(executor.executeScript(anyString(), any(), any())).thenReturn(
+                Collections.singletonList(Collections.singletonList("block")));
+
+        assertThat(computedStyles.cssSourceOf(first).getCssValue("display")).isEqualTo("block");
+
+        verify(executor).executeScript(anyString(), eq(Collections.singletonList(first)), any());
+    }
+
+    @Test
+    public void failingBatchesFallBackToTheRequestedElement() {
+        when(executor.executeScript(anyString(), any(), any())).thenThrow(new StaleElementReferenceException("stale"));
+        when(first.getCssValue("display")).thenReturn("flex");
+        List<WebElement> batch = Arrays.asList(first, second);
+
+        assertThat(computedStyles.cssSourceOf(first, batch).getCssValue("display")).isEqualTo("flex");
+    }
+}
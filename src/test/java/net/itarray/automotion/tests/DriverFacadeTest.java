@@ -0,0 +1,148 @@
+package net.itarray.automotion.tests;
+
+import io.appium.java_client.android.AndroidDriver;
+import net.itarray.automotion.internal.DriverFacade;
+import net.itarray.automotion.internal.PageMetrics;
+import net.itarray.automotion.internal.geometry.Rectangle;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class DriverFacadeTest {
+
+    private WebDriver webDriver;
+    private DriverFacade driver;
+    private List<WebElement> webElements;
+
+    @Before
+    public void setUp() {
+        webDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        driver = new DriverFacade(webDriver);
+        webElements = Arrays.asList(mock(WebElement.class), mock(WebElement.class));
+    }
+
+    @Test
+    public void retrieveRectanglesNeedsASingleScriptForAllElements() {
+        when(((JavascriptExecutor) webDriver).executeScript(anyString(), any())).thenReturn(Arrays.asList(
+                Arrays.asList(10L, 20L, 30L, 40L),
+                Arrays.asList(5.7d, 6.2d, 100.9d, 50L)));
+
+        List<Rectangle> rectangles = driver.retrieveRectangles(webElements);
+
+        verify((JavascriptExecutor) webDriver, times(1)).executeScript(anyString(), any());
+        for (WebElement webElement : webElements) {
+            verifyZeroInteractions(webElement);
+        }
+        assertThat(rectangles).hasSize(2);
+        assertThat(rectangles.get(0).toString()).isEqualTo(new Rectangle(10, 20, 40, 60).toString());
+        assertThat(rectangles.get(1).toString()).isEqualTo(new Rectangle(5, 6, 105, 56).toString());
+    }
+
+    @Test
+    public void retrieveRectanglesReportsElementsNoLongerAttachedToThePage() {
+        when(((JavascriptExecutor) webDriver).executeScript(anyString(), any())).thenReturn(Arrays.asList(
+                null,
+                Arrays.asList(10L, 20L, 30L, 40L)));
+        List<Integer> staleIndexes = new ArrayList<>();
+
+        List<Rectangle> rectangles = driver.retrieveRectangles(webElements, staleIndexes);
+
+        assertThat(staleIndexes).containsExactly(0);
+        assertThat(rectangles.get(1).toString()).isEqualTo(new Rectangle(10, 20, 40, 60).toString());
+        assertThatThrownBy(() -> driver.retrieveRectangles(webElements)).isInstanceOf(StaleElementReferenceException.class);
+    }
+
+    @Test
+    public void retrieveRectanglesOfNoElementsDoesNotInteractWithTheDriver() {
+        assertThat(driver.retrieveRectangles(Arrays.asList())).isEmpty();
+        verifyZeroInteractions(webDriver);
+    }
+
+    @Test
+    public void retrieveNamePropertiesNeedsASingleScriptForAllElements() {
+        when(((JavascriptExecutor) webDriver).executeScript(anyString(), any())).thenReturn(Arrays.asList(
+                Arrays.asList("div", "first", "card", "Title"),
+                Arrays.asList("span", null, null, "")));
+
+        List<List<String>> properties = driver.retrieveNameProperties(webElements);
+
+        verify((JavascriptExecutor) webDriver, times(1)).executeScript(anyString(), any());
+        for (WebElement webElement : webElements) {
+            verifyZeroInteractions(webElement);
+        }
+        assertThat(properties).containsExactly(
+                Arrays.asList("div", "first", "card", "Title"),
+                Arrays.asList("span", null, null, ""));
+    }
+
+    @Test
+    public void retrieveNamePropertiesNormalizesTheTextLikeGetText() {
+        when(((JavascriptExecutor) webDriver).executeScript(anyString(), any())).thenReturn(Arrays.asList(
+                Arrays.asList("p", "", "price", "  Sale\u00a0 price \n\n\t now  "),
+                Arrays.asList("p", "", "", "")));
+
+        List<List<String>> properties = driver.retrieveNameProperties(webElements);
+
+        assertThat(properties).containsExactly(
+                Arrays.asList("p", "", "price", "Sale price\nnow"),
+                Arrays.asList("p", "", "", ""));
+    }
+
+    @Test
+    public void retrievePageMetricsNeedsASingleScript() {
+        when(((JavascriptExecutor) webDriver).executeScript(anyString())).thenReturn(Arrays.asList(1200L, 800L, "", 0L, 35.5d, 2L));
+
+        PageMetrics metrics = driver.retrievePageMetrics();
+
+        verify((JavascriptExecutor) webDriver, times(1)).executeScript(anyString());
+        assertThat(metrics.getPageSize()).isEqualTo(new Dimension(1200, 800));
+        assertThat(metrics.getZoom()).isEqualTo("100%");
+        assertThat(metrics.getScrollY()).isEqualTo(35);
+        assertThat(metrics.getDevicePixelRatio()).isEqualTo(2d);
+    }
+
+    @Test
+    public void theAppiumContextIsRetrievedOnceUntilInvalidated() {
+        AndroidDriver androidDriver = mock(AndroidDriver.class);
+        when(androidDriver.getContext()).thenReturn("NATIVE_APP", "WEBVIEW_1");
+        DriverFacade appium = new DriverFacade(androidDriver);
+
+        assertThat(appium.isAppiumNativeMobileContext()).isTrue();
+        assertThat(appium.isAppiumWebContext()).isFalse();
+        verify(androidDriver, times(1)).getContext();
+
+        appium.invalidateContext();
+
+        assertThat(appium.isAppiumWebContext()).isTrue();
+        verify(androidDriver, times(2)).getContext();
+    }
+
+    @Test
+    public void theBrowserNameIsRetrievedOnce() {
+        RemoteWebDriver remoteWebDriver = mock(RemoteWebDriver.class);
+        Capabilities capabilities = mock(Capabilities.class);
+        when(capabilities.getBrowserName()).thenReturn("Firefox");
+        when(remoteWebDriver.getCapabilities()).thenReturn(capabilities);
+        DriverFacade remote = new DriverFacade(remoteWebDriver);
+
+        assertThat(remote.isChromeDriver()).isFalse();
+        assertThat(remote.isFirefoxDriver()).isTrue();
+        verify(remoteWebDriver, times(1)).getCapabilities();
+    }
+}
@@ -0,0 +1,87 @@
+package net.itarray.automotion.tests;
+
+import net.itarray.automotion.internal.DriverFacade;
+import net.itarray.automotion.internal.ResolutionImpl;
+import net.itarray.automotion.internal.ResponsiveUIValidatorBase;
+import net.itarray.automotion.internal.ZoomImpl;
+import net.itarray.automotion.internal.geometry.Vector;
+import net.itarray.automotion.validation.ChunkUIElementValidator;
+import net.itarray.automotion.validation.ResponsiveUIValidator;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class InBrowserChunkRulesTest {
+
+    private JavascriptExecutor executor;
+    private List<WebElement> webElements;
+    private ChunkUIElementValidator validator;
+
+    @Before
+    public void setUp() {
+        WebDriver webDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        executor = (JavascriptExecutor) webDriver;
+        DriverFacade driver = spy(new DriverFacade(webDriver));
+        doReturn(new Dimension(1000, 800)).when(driver).retrievePageSize();
+        doNothing().when(driver).setResolution(any());
+        doNothing().when(driver).setZoom(anyInt());
+        doReturn(new Vector(1000, 800)).when(driver).takeScreenshot(any(File.class), anyInt(), anyInt(), any());
+        doReturn(true).when(driver).isChromeDriver();
+        webElements = Arrays.asList(mock(WebElement.class), mock(WebElement.class), mock(WebElement.class));
+
+        ResponsiveUIValidator uiValidator = new ResponsiveUIValidator(driver).evaluateChunkRulesInBrowser();
+        uiValidator.dontDrawMap();
+        validator = uiValidator.snapshot("in browser", ResolutionImpl.of(1000, 800), ZoomImpl.of(100)).findElements(webElements);
+    }
+
+    @Test
+    public void onlyViolatingElementsAreRetrieved() {
+        when(executor.executeScript(anyString(), eq(webElements), eq("notAligned"), eq(0), eq(1))).thenReturn(Arrays.asList(2L));
+        when(executor.executeScript(argThat(script -> script.contains("rects.push")), anyList())).thenReturn(Arrays.asList(
+                Arrays.asList(50L, 12L, 10L, 10L),
+                Arrays.asList(10L, 10L, 10L, 10L)));
+
+        validator.areTopAligned();
+
+        verify(executor).executeScript(argThat(script -> script.contains("rects.push")), eq(Arrays.asList(webElements.get(2), webElements.get(0))));
+        assertThat(((ResponsiveUIValidatorBase) validator).getErrors().getMessages()).hasSize(1);
+        assertThat(((ResponsiveUIValidatorBase) validator).getErrors().getMessages().toString())
+                .contains("Element #1:[(10,10) - 10x10] has not the same top offset as element #3:[(50,12) - 10x10]");
+    }
+
+    @Test
+    public void nothingIsRetrievedWithoutViolations() {
+        when(executor.executeScript(anyString(), eq(webElements), eq("overlaps"), eq(0), isNull())).thenReturn(Arrays.asList());
+
+        validator.doNotOverlap();
+
+        verify(executor, never()).executeScript(argThat(script -> script.contains("rects.push")), anyList());
+        assertThat(((ResponsiveUIValidatorBase) validator).getErrors().hasMessages()).isFalse();
+    }
+
+    @Test
+    public void gridsAreValidatedByRowCounts() {
+        when(executor.executeScript(anyString(), eq(webElements), eq("rowCounts"), eq(0), isNull())).thenReturn(Arrays.asList(2L, 1L));
+
+        validator.alignedAsGrid(2, 1);
+
+        assertThat(((ResponsiveUIValidatorBase) validator).getErrors().getMessages().toString())
+                .contains("Looks like grid has wrong amount of rows. Expected is 1. Actual is 2");
+    }
+}
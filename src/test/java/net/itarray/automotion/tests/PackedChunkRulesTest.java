@@ -0,0 +1,116 @@
+package net.itarray.automotion.tests;
+
+import net.itarray.automotion.internal.ChunkRules.Edge;
+import net.itarray.automotion.internal.ChunkRules.Extent;
+import net.itarray.automotion.internal.PackedChunkRules;
+import net.itarray.automotion.internal.geometry.PackedRectangles;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static net.itarray.automotion.internal.geometry.Scalar.scalar;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PackedChunkRulesTest {
+
+    @Test
+    public void findsTheSameOverlapsAsAScanInChunkOrder() {
+        Random random = new Random(17);
+        for (int run = 0; run < 50; run++) {
+            PackedRectangles rectangles = new PackedRectangles(0);
+            for (int i = 0; i < 60; i++) {
+                int left = random.nextInt(400);
+                int top = random.nextInt(300);
+                rectangles.add(left, top, left + random.nextInt(60), top + random.nextInt(40));
+            }
+            for (int tolerance : new int[]{0, 3}) {
+                assertThat(new PackedChunkRules(rectangles).findOverlaps(scalar(tolerance)))
+                        .containsExactlyElementsOf(scannedOverlaps(rectangles, tolerance));
+            }
+        }
+    }
+
+    @Test
+    public void findsOverlapsInAColumn() {
+        PackedRectangles rectangles = new PackedRectangles(0);
+        rectangles.add(0, 0, 10, 10);
+        rectangles.add(0, 20, 10, 30);
+        rectangles.add(0, 5, 10, 25);
+        assertThat(new PackedChunkRules(rectangles).findOverlaps(scalar(0)))
+                .containsExactly(new int[]{0, 2}, new int[]{1, 2});
+    }
+
+    @Test
+    public void findsTheSamePairsOfEqualExtentsAsComparingAllPairs() {
+        Random random = new Random(23);
+        PackedRectangles rectangles = new PackedRectangles(0);
+        for (int i = 0; i < 200; i++) {
+            rectangles.add(0, 0, 10 + random.nextInt(30), 10 + random.nextInt(30));
+        }
+        for (Extent extent : Extent.values()) {
+            for (int tolerance : new int[]{0, 2, 5}) {
+                assertThat(new PackedChunkRules(rectangles).findEqualExtents(extent, scalar(tolerance)))
+                        .containsExactlyElementsOf(comparedEqualExtents(rectangles, extent, tolerance));
+            }
+        }
+    }
+
+    @Test
+    public void findsTheSameResultsInParallelAsSequentially() {
+        Random random = new Random(31);
+        PackedRectangles rectangles = new PackedRectangles(0);
+        for (int i = 0; i < 2000; i++) {
+            int left = random.nextInt(2000);
+            int top = random.nextInt(1500);
+            rectangles.add(left, top, left + 1 + random.nextInt(40), top + 1 + random.nextInt(30));
+        }
+        PackedChunkRules sequential = new PackedChunkRules(rectangles);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PackedChunkRules parallel = new PackedChunkRules(rectangles, pool);
+            assertThat(parallel.findOverlaps(scalar(2))).containsExactlyElementsOf(sequential.findOverlaps(scalar(2)));
+            assertThat(parallel.findNotAligned(Edge.TOP, scalar(1))).containsExactlyElementsOf(sequential.findNotAligned(Edge.TOP, scalar(1)));
+            assertThat(parallel.findDifferentExtents(Extent.WIDTH, scalar(1))).containsExactlyElementsOf(sequential.findDifferentExtents(Extent.WIDTH, scalar(1)));
+            assertThat(parallel.findEqualExtents(Extent.SIZE, scalar(0))).containsExactlyElementsOf(sequential.findEqualExtents(Extent.SIZE, scalar(0)));
+            assertThat(parallel.findMisplacedCells()).containsExactlyElementsOf(sequential.findMisplacedCells());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<int[]> comparedEqualExtents(PackedRectangles rectangles, Extent extent, int tolerance) {
+        List<int[]> equal = new ArrayList<>();
+        for (int i = 0; i < rectangles.size(); i++) {
+            for (int j = i + 1; j < rectangles.size(); j++) {
+                int dx = rectangles.width(i) - rectangles.width(j);
+                int dy = rectangles.height(i) - rectangles.height(j);
+                boolean same = extent == Extent.WIDTH ? Math.abs(dx) <= tolerance
+                        : extent == Extent.HEIGHT ? Math.abs(dy) <= tolerance
+                        : Math.sqrt(dx * dx + dy * dy) <= tolerance;
+                if (same) {
+                    equal.add(new int[]{i, j});
+                }
+            }
+        }
+        return equal;
+    }
+
+    private static List<int[]> scannedOverlaps(PackedRectangles rectangles, int tolerance) {
+        List<int[]> overlaps = new ArrayList<>();
+        for (int i = 0; i < rectangles.size(); i++) {
+            for (int j = i + 1; j < rectangles.size(); j++) {
+                if (rectangles.left(i) < rectangles.right(j) - tolerance
+                        && rectangles.left(j) < rectangles.right(i) - tolerance
+                        && rectangles.top(i) < rectangles.bottom(j) - tolerance
+                        && rectangles.top(j) < rectangles.bottom(i) - tolerance) {
+                    overlaps.add(new int[]{i, j});
+                    break;
+                }
+            }
+        }
+        return overlaps;
+    }
+}
@@ -0,0 +1,113 @@
+package net.itarray.automotion.tests;
+
+import net.itarray.automotion.internal.LayoutRecording;
+import net.itarray.automotion.internal.PageLayout;
+import net.itarray.automotion.internal.RecordedWebElement;
+import net.itarray.automotion.internal.ReplayDriverFacade;
+import net.itarray.automotion.internal.ResponsiveUIValidatorBase;
+import net.itarray.automotion.internal.geometry.Rectangle;
+import net.itarray.automotion.validation.ResponsiveUIValidator;
+import net.itarray.automotion.validation.UIElementValidator;
+import net.itarray.automotion.validation.UISnapshot;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.WebElement;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ReplayDriverFacadeTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ReplayDriverFacade driver;
+
+    @Before
+    public void setUp() throws IOException {
+        PageLayout layout = new PageLayout();
+        layout.add(mock(WebElement.class), "html>body:nth-child(2)>div:nth-child(1)",
+                new Rectangle(10, 20, 110, 70), Arrays.asList("div", "header", "top bar", ""),
+                Collections.singletonMap("color", "rgba(0, 0, 0, 1)"));
+        layout.add(mock(WebElement.class), "html>body:nth-child(2)>div:nth-child(2)",
+                new Rectangle(12, 80, 110, 120), Arrays.asList("div", null, "bar", "Content"),
+                Collections.emptyMap());
+        File file = folder.newFile("layout.json");
+        LayoutRecording.write(file, layout, new Dimension(1280, 1024), "100%", new Dimension(1200, 900));
+
+        driver = ReplayDriverFacade.replay(file);
+    }
+
+    @Test
+    public void replaysPageProperties() {
+        assertThat(driver.getResolution()).isEqualTo(new Dimension(1280, 1024));
+        assertThat(driver.getZoom()).isEqualTo("100%");
+        assertThat(driver.retrievePageSize()).isEqualTo(new Dimension(1200, 900));
+    }
+
+    @Test
+    public void replaysRecordedElements() {
+        RecordedWebElement header = driver.findElementById("header");
+
+        assertThat(header.getLocation().getX()).isEqualTo(10);
+        assertThat(header.getSize()).isEqualTo(new Dimension(100, 50));
+        assertThat(header.getCssValue("color")).isEqualTo("rgba(0, 0, 0, 1)");
+        assertThat(driver.findElementByPath("html>body:nth-child(2)>div:nth-child(2)").getText()).isEqualTo("Content");
+        assertThat(driver.findElementsByClassName("bar")).hasSize(2);
+        assertThat(driver.findElementsByTagName("div")).hasSize(2);
+    }
+
+    @Test
+    public void validatesWithoutBrowser() {
+        ResponsiveUIValidator uiValidator = new ResponsiveUIValidator(driver);
+        uiValidator.dontDrawMap();
+        UIElementValidator validator = uiValidator.snapshot().findElement(driver.findElementById("header"), "header");
+
+        validator.isLeftAlignedWith(driver.findElementsByClassName("bar").get(1), "content");
+
+        assertThat(((ResponsiveUIValidatorBase) validator).getErrors().getMessages()).hasSize(1);
+    }
+
+    @Test
+    public void runsASpecOnARecordingEndToEnd() {
+        ResponsiveUIValidator uiValidator = new ResponsiveUIValidator(driver);
+        UISnapshot snapshot = uiValidator.snapshot("replayed");
+
+        boolean headerValid = snapshot.findElement(By.id("header"), "header")
+                .isLeftAlignedWith(driver.findElementByPath("html>body:nth-child(2)>div:nth-child(2)"), "content")
+                .validate();
+        boolean barsValid = snapshot.findElements(By.className("bar"))
+                .doNotOverlap()
+                .areRightAligned()
+                .validate();
+        uiValidator.getArtifacts().flush();
+
+        assertThat(headerValid).isFalse();
+        assertThat(barsValid).isTrue();
+        assertThat(uiValidator.getJsonFiles()).hasSize(2);
+    }
+
+    @Test
+    public void screenshotsAreBlankPagesEitherWay() throws IOException {
+        File file = folder.newFile("screenshot.png");
+
+        driver.takeScreenshot(file, 0, 0, null);
+
+        assertThat(ImageIO.read(driver.takeScreenshot()).getWidth()).isEqualTo(ImageIO.read(file).getWidth()).isEqualTo(1200);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void locatorsThatCannotBeReplayedFailDescriptively() {
+        driver.findElements(By.xpath("//div"));
+    }
+}
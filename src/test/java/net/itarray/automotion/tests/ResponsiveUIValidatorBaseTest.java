@@ -0,0 +1,58 @@
+package net.itarray.automotion.tests;
+
+import net.itarray.automotion.internal.DrawingConfiguration;
+import net.itarray.automotion.internal.TransformedGraphics;
+import net.itarray.automotion.validation.ResponsiveUIValidator;
+import net.itarray.automotion.validation.UISnapshot;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import rectangles.DummyDriverFacade;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static rectangles.DummyWebElement.createElement;
+
+public class ResponsiveUIValidatorBaseTest {
+
+    private DummyDriverFacade driver;
+    private DrawingConfiguration drawingConfiguration;
+    private UISnapshot snapshot;
+
+    @Before
+    public void setUp() {
+        driver = spy(new DummyDriverFacade());
+        drawingConfiguration = spy(new DrawingConfiguration());
+        ResponsiveUIValidator validator = spy(new ResponsiveUIValidator(driver));
+        doReturn(drawingConfiguration).when(validator).getDrawingConfiguration();
+        snapshot = validator.snapshot();
+    }
+
+    @Test
+    public void passingValidationsRecordNoDrawingsAndTakeNoScreenshot() {
+        boolean valid = snapshot.findElement(createElement(10, 20, 30, 40), "root")
+                .isLeftOf(createElement(50, 60, 70, 80))
+                .validate();
+
+        assertThat(valid).isTrue();
+        verify(driver, never()).takeScreenshot(any(File.class), anyInt(), anyInt(), any());
+        verifyZeroInteractions(drawingConfiguration);
+    }
+
+    @Test
+    public void failingValidationsDrawTheRootElementBeforeTheViolatingElements() {
+        boolean valid = snapshot.findElement(createElement(10, 20, 30, 40), "root")
+                .isLeftOf(createElement(0, 0, 5, 5))
+                .validate();
+
+        assertThat(valid).isFalse();
+        verify(driver, times(1)).takeScreenshot(any(File.class), anyInt(), anyInt(), any());
+        InOrder inOrder = inOrder(drawingConfiguration);
+        inOrder.verify(drawingConfiguration).setRootElementStyle(any(TransformedGraphics.class));
+        inOrder.verify(drawingConfiguration).setHighlightedElementStyle(any(TransformedGraphics.class));
+        inOrder.verifyNoMoreInteractions();
+    }
+}
@@ -0,0 +1,246 @@
+package net.itarray.automotion.tests;
+
+import net.itarray.automotion.internal.DriverFacade;
+import net.itarray.automotion.internal.SnapshotElements;
+import net.itarray.automotion.internal.UIElement;
+import net.itarray.automotion.internal.geometry.Rectangle;
+import net.itarray.automotion.internal.geometry.SpatialIndex;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static rectangles.DummyWebElement.createElement;
+
+public class SnapshotElementsTest {
+
+    private DriverFacade driver;
+    private List<WebElement> webElements;
+
+    @Before
+    public void setUp() {
+        driver = spy(new DriverFacade(null));
+        webElements = Arrays.asList(
+                spy(createElement(10, 20, 30, 40)),
+                spy(createElement(50, 60, 70, 80)));
+    }
+
+    @Test
+    public void asElementsDoesNotRetrieveNamesUntilTheyAreNeeded() {
+        new SnapshotElements(driver).asElements(webElements);
+
+        verify(driver, never()).retrieveNameProperties(anyList());
+        for (WebElement webElement : webElements) {
+            verify(webElement, never()).getTagName();
+            verify(webElement, never()).getText();
+        }
+    }
+
+    @Test
+    public void asElementsRetrievesTheNamesOfAllElementsAtOnce() {
+        List<UIElement> elements = new SnapshotElements(driver).asElements(webElements);
+
+        assertThat(elements.get(1).getName()).isEqualTo("with properties: tag=[null], id=[null], class=[null], text=[], coord=[50,60], size=[20,20]");
+        assertThat(elements.get(0).getName()).isEqualTo("with properties: tag=[null], id=[null], class=[null], text=[], coord=[10,20], size=[20,20]");
+
+        verify(driver, times(1)).retrieveNameProperties(webElements);
+    }
+
+    @Test
+    public void elementsGoneStaleBeforeTheyAreNamedAreNamedByTheirGeometry() {
+        List<UIElement> elements = new SnapshotElements(driver).asElements(webElements);
+        when(webElements.get(1).getTagName()).thenThrow(new StaleElementReferenceException("stale"));
+
+        assertThat(elements.get(1).getName()).isEqualTo("with properties: tag=[stale element], id=[null], class=[null], text=[], coord=[50,60], size=[20,20]");
+        assertThat(elements.get(0).getName()).isEqualTo("with properties: tag=[null], id=[null], class=[null], text=[], coord=[10,20], size=[20,20]");
+    }
+
+    @Test
+    public void elementsAreCreatedOncePerSnapshot() {
+        SnapshotElements elements = new SnapshotElements(driver);
+
+        UIElement first = elements.asElement(webElements.get(0));
+        List<UIElement> all = elements.asElements(webElements);
+        UIElement named = elements.asElement(webElements.get(1), "second");
+
+        assertThat(all.get(0)).isSameAs(first);
+        assertThat(named.getName()).isEqualTo("second");
+        assertThat(named.getRectangle()).isSameAs(all.get(1).getRectangle());
+        for (WebElement webElement : webElements) {
+            verify(webElement, times(1)).getLocation();
+        }
+    }
+
+    @Test
+    public void retrievedRectanglesAreNotRetrievedAgainForElements() {
+        SnapshotElements elements = new SnapshotElements(driver);
+
+        elements.rectanglesOf(webElements);
+        List<UIElement> all = elements.asElements(webElements);
+
+        assertThat(all.get(1).getRectangle().toString()).isEqualTo(new Rectangle(50, 60, 70, 80).toString());
+        for (WebElement webElement : webElements) {
+            verify(webElement, times(1)).getLocation();
+        }
+    }
+
+    @Test
+    public void capturedElementsAreResolvedWithoutTheDriver() {
+        WebDriver webDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        JavascriptExecutor executor = (JavascriptExecutor) webDriver;
+        WebElement first = mock(WebElement.class);
+        WebElement second = mock(WebElement.class);
+        when(executor.executeScript(anyString(), any(), any())).thenReturn(Arrays.asList(
+                Arrays.asList(first, second),
+                Arrays.asList("html", "html>body:nth-child(2)"),
+                Arrays.asList(Arrays.asList(10L, 20L, 30L, 40L), Arrays.asList(50L, 60L, 70L, 80L)),
+                Arrays.asList(Arrays.asList("html", null, null, ""), Arrays.asList("body", "main", null, "")),
+                Arrays.asList(Collections.singletonMap("color", "rgba(0, 0, 0, 1)"), Collections.singletonMap("color", "rgba(1, 1, 1, 1)"))));
+        SnapshotElements elements = new SnapshotElements(new DriverFacade(webDriver));
+
+        elements.captureLayout("html", Collections.emptyList());
+        List<UIElement> uiElements = elements.asElements(Arrays.asList(second, first));
+
+        assertThat(uiElements.get(0).getRectangle().toString()).isEqualTo(new Rectangle(50, 60, 120, 140).toString());
+        assertThat(uiElements.get(1).getRectangle().toString()).isEqualTo(new Rectangle(10, 20, 40, 60).toString());
+        assertThat(elements.getComputedStyles().getCssValue(second, "color")).isEqualTo("rgba(1, 1, 1, 1)");
+        verify(executor, times(1)).executeScript(anyString(), any(), any());
+        verifyZeroInteractions(first, second);
+    }
+
+    @Test
+    public void changedListsAreIndexedAgain() {
+        SnapshotElements elements = new SnapshotElements(driver);
+        List<WebElement> list = new ArrayList<>(webElements.subList(0, 1));
+
+        SpatialIndex first = elements.indexOf(list);
+        list.add(webElements.get(1));
+        SpatialIndex second = elements.indexOf(list);
+
+        assertThat(first.getRectangles()).hasSize(1);
+        assertThat(second.getRectangles()).hasSize(2);
+        assertThat(elements.indexOf(new ArrayList<>(webElements))).isSameAs(second);
+    }
+
+    @Test
+    public void onlyStaleElementsAreLocatedAgain() {
+        WebDriver webDriver = mock(WebDriver.class);
+        WebElement stale = mock(WebElement.class);
+        when(stale.getLocation()).thenThrow(new StaleElementReferenceException("stale"));
+        WebElement fresh = createElement(50, 60, 70, 80);
+        By by = By.className("card");
+        when(webDriver.findElements(by)).thenReturn(Arrays.asList(webElements.get(0), stale), Arrays.asList(webElements.get(0), fresh));
+        SnapshotElements elements = new SnapshotElements(new DriverFacade(webDriver));
+
+        List<UIElement> uiElements = elements.asElements(elements.findElements(by));
+
+        assertThat(uiElements.get(1).getRectangle().toString()).isEqualTo(new Rectangle(50, 60, 70, 80).toString());
+        verify(webDriver, times(2)).findElements(by);
+        verify(webElements.get(0), times(1)).getLocation();
+    }
+
+    @Test
+    public void staleBatchesAreRetrievedAgainOnce() {
+        WebDriver webDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        JavascriptExecutor executor = (JavascriptExecutor) webDriver;
+        WebElement stale = mock(WebElement.class);
+        WebElement fresh = mock(WebElement.class);
+        By by = By.className("card");
+        when(webDriver.findElements(by)).thenReturn(Collections.singletonList(stale), Collections.singletonList(fresh));
+        when(executor.executeScript(anyString(), eq(Collections.singletonList(stale)))).thenThrow(new StaleElementReferenceException("stale"));
+        when(executor.executeScript(anyString(), eq(Collections.singletonList(fresh)))).thenReturn(Collections.singletonList(Arrays.asList(1L, 2L, 3L, 4L)));
+        SnapshotElements elements = new SnapshotElements(new DriverFacade(webDriver));
+
+        List<UIElement> uiElements = elements.asElements(elements.findElements(by));
+
+        assertThat(uiElements.get(0).getRectangle().toString()).isEqualTo(new Rectangle(1, 2, 4, 6).toString());
+        verify(executor, times(2)).executeScript(anyString(), any());
+    }
+
+    @Test
+    public void onlyStaleElementsOfABatchAreRetrievedAgain() {
+        WebDriver webDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        JavascriptExecutor executor = (JavascriptExecutor) webDriver;
+        WebElement first = mock(WebElement.class);
+        WebElement stale = mock(WebElement.class);
+        WebElement last = mock(WebElement.class);
+        WebElement fresh = mock(WebElement.class);
+        By by = By.className("card");
+        when(webDriver.findElements(by)).thenReturn(Arrays.asList(first, stale, last), Arrays.asList(first, fresh, last));
+        when(executor.executeScript(anyString(), anyList())).thenAnswer(invocation -> {
+            List<?> batch = invocation.getArgument(1);
+            return batch.stream()
+                    .map(e -> e == stale ? null : e == fresh ? Arrays.asList(5L, 5L, 5L, 5L) : Arrays.asList(1L, 1L, 1L, 1L))
+                    .collect(Collectors.toList());
+        });
+        SnapshotElements elements = new SnapshotElements(new DriverFacade(webDriver));
+
+        List<UIElement> uiElements = elements.asElements(elements.findElements(by));
+
+        assertThat(uiElements.get(0).getRectangle().toString()).isEqualTo(new Rectangle(1, 1, 2, 2).toString());
+        assertThat(uiElements.get(1).getRectangle().toString()).isEqualTo(new Rectangle(5, 5, 10, 10).toString());
+        verify(executor).executeScript(anyString(), eq(Arrays.asList(first, stale, last)));
+        verify(executor).executeScript(anyString(), eq(Collections.singletonList(fresh)));
+        verify(executor, times(2)).executeScript(anyString(), any());
+    }
+
+    @Test
+    public void batchesRejectedByTheDriverAreRetrievedAgainOnce() {
+        WebDriver webDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        JavascriptExecutor executor = (JavascriptExecutor) webDriver;
+        WebElement first = mock(WebElement.class);
+        WebElement stale = mock(WebElement.class);
+        WebElement last = mock(WebElement.class);
+        WebElement fresh = mock(WebElement.class);
+        By by = By.className("card");
+        when(webDriver.findElements(by)).thenReturn(Arrays.asList(first, stale, last), Arrays.asList(first, fresh, last));
+        when(executor.executeScript(anyString(), anyList())).thenAnswer(invocation -> {
+            List<?> batch = invocation.getArgument(1);
+            if (batch.contains(stale)) {
+                throw new StaleElementReferenceException("stale");
+            }
+            return batch.stream().map(e -> e == fresh ? Arrays.asList(5L, 5L, 5L, 5L) : Arrays.asList(1L, 1L, 1L, 1L)).collect(Collectors.toList());
+        });
+        SnapshotElements elements = new SnapshotElements(new DriverFacade(webDriver));
+
+        List<UIElement> uiElements = elements.asElements(elements.findElements(by));
+
+        assertThat(uiElements.get(1).getRectangle().toString()).isEqualTo(new Rectangle(5, 5, 10, 10).toString());
+        verify(executor).executeScript(anyString(), eq(Arrays.asList(first, fresh, last)));
+        verify(executor, times(2)).executeScript(anyString(), any());
+    }
+
+    @Test
+    public void staleElementsAreNotLocatedAgainIfTheirLocatorFindsADifferentNumberOfElements() {
+        WebDriver webDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        JavascriptExecutor executor = (JavascriptExecutor) webDriver;
+        WebElement first = mock(WebElement.class);
+        WebElement stale = mock(WebElement.class);
+        WebElement inserted = mock(WebElement.class);
+        By by = By.className("card");
+        when(webDriver.findElements(by)).thenReturn(Arrays.asList(first, stale), Arrays.asList(inserted, first, stale));
+        when(executor.executeScript(anyString(), anyList())).thenReturn(Arrays.asList(Arrays.asList(1L, 1L, 1L, 1L), null));
+        SnapshotElements elements = new SnapshotElements(new DriverFacade(webDriver));
+        List<WebElement> found = elements.findElements(by);
+
+        assertThatThrownBy(() -> elements.asElements(found))
+                .isInstanceOf(StaleElementReferenceException.class)
+                .hasMessageContaining("found 2 elements before and 3 now");
+    }
+}
@@ -0,0 +1,114 @@
+package net.itarray.automotion.tests;
+
+import net.itarray.automotion.internal.DriverFacade;
+import net.itarray.automotion.internal.ResolutionImpl;
+import net.itarray.automotion.internal.ZoomImpl;
+import net.itarray.automotion.validation.ResponsiveUIValidator;
+import net.itarray.automotion.validation.SnapshotMatrix;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class SnapshotMatrixTest {
+
+    private List<DriverFacade> drivers;
+    private ResponsiveUIValidator validator;
+    private SnapshotMatrix matrix;
+
+    @Before
+    public void setUp() {
+        drivers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            DriverFacade driver = spy(new DriverFacade(mock(WebDriver.class)));
+            doReturn(new Dimension(1000, 800)).when(driver).retrievePageSize();
+            doNothing().when(driver).setResolution(any());
+            doNothing().when(driver).setZoom(anyInt());
+            drivers.add(driver);
+        }
+        validator = new ResponsiveUIValidator(mock(DriverFacade.class));
+        matrix = validator.snapshotMatrix(drivers)
+                .withResolutions(ResolutionImpl.of(1280, 800), ResolutionImpl.of(768, 1024), ResolutionImpl.of(375, 667))
+                .withZooms(ZoomImpl.of(100), ZoomImpl.of(50));
+    }
+
+    @Test
+    public void mergesTheResultsInTheOrderOfTheCombinations() {
+        boolean valid = matrix.run("matrix", snapshot -> {
+            snapshot.getResponsiveUIValidator().addJsonFile(snapshot.getDescription());
+            return true;
+        });
+
+        assertThat(valid).isTrue();
+        assertThat(validator.getJsonFiles()).containsExactly(
+                "matrix - resolution: 1280x800 - zoom: 100%",
+                "matrix - resolution: 1280x800 - zoom: 50%",
+                "matrix - resolution: 768x1024 - zoom: 100%",
+                "matrix - resolution: 768x1024 - zoom: 50%",
+                "matrix - resolution: 375x667 - zoom: 100%",
+                "matrix - resolution: 375x667 - zoom: 50%");
+    }
+
+    @Test
+    public void isInvalidIfAnyCombinationIsInvalid() {
+        assertThat(matrix.run("matrix", snapshot -> !snapshot.getDescription().contains("768x1024 - zoom: 50%"))).isFalse();
+    }
+
+    @Test
+    public void validatesEachCombinationOnOneDriverOfThePool() {
+        Set<DriverFacade> used = ConcurrentHashMap.newKeySet();
+        List<String> validated = new ArrayList<>();
+
+        matrix.run("matrix", snapshot -> {
+            used.add(snapshot.getResponsiveUIValidator().getDriver());
+            synchronized (validated) {
+                validated.add(snapshot.getDescription());
+            }
+            return true;
+        });
+
+        assertThat(validated).hasSize(6).doesNotHaveDuplicates();
+        assertThat(drivers).containsAll(used);
+        verify(validator.getDriver(), never()).setResolution(any());
+    }
+
+    @Test
+    public void keepsTheCurrentZoomWithoutZooms() {
+        for (DriverFacade driver : drivers) {
+            doReturn("100%").when(driver).getZoom();
+        }
+        List<String> validated = new ArrayList<>();
+
+        boolean valid = validator.snapshotMatrix(drivers)
+                .withResolutions(ResolutionImpl.of(1280, 800), ResolutionImpl.of(375, 667))
+                .run("matrix", snapshot -> {
+                    synchronized (validated) {
+                        validated.add(snapshot.getDescription());
+                    }
+                    return false;
+                });
+
+        assertThat(valid).isFalse();
+        assertThat(validated).containsExactlyInAnyOrder(
+                "matrix - resolution: 1280x800 - zoom: 100%",
+                "matrix - resolution: 375x667 - zoom: 100%");
+        for (DriverFacade driver : drivers) {
+            verify(driver, never()).setZoom(anyInt());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void needsAtLeastOneDriver() {
+        validator.snapshotMatrix(Arrays.asList());
+    }
+}
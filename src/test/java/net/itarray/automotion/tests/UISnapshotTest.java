@@ -0,0 +1,82 @@
+package net.itarray.automotion.tests;
+
+import net.itarray.automotion.internal.PageLayout;
+import net.itarray.automotion.validation.ResponsiveUIValidator;
+import net.itarray.automotion.validation.UISnapshot;
+import org.junit.Test;
+import rectangles.DummyDriverFacade;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static rectangles.DummyWebElement.createElement;
+
+public class UISnapshotTest {
+
+    @Test
+    public void validatorsOfASnapshotShareThePageSize() {
+        DummyDriverFacade driver = spy(new DummyDriverFacade());
+        UISnapshot snapshot = new ResponsiveUIValidator(driver).snapshot();
+
+        snapshot.findElement(createElement(10, 20, 30, 40), "first");
+        snapshot.findElement(createElement(50, 60, 70, 80), "second");
+
+        verify(driver, times(1)).retrievePageSize();
+    }
+
+    @Test
+    public void screenshotsAreCutByTheSettingsOfTheirValidator() {
+        DummyDriverFacade driver = spy(new DummyDriverFacade());
+        ResponsiveUIValidator validator = new ResponsiveUIValidator(driver);
+        validator.setHeaderCutPx(60);
+        validator.setFooterCutPx(40);
+        new ResponsiveUIValidator(driver).setHeaderCutPx(10);
+
+        validator.snapshot().takeScreenshot();
+
+        verify(driver).takeScreenshot(any(File.class), eq(60), eq(40), any());
+        assertThat(System.getProperty("headerCutPx")).isNull();
+    }
+
+    @Test
+    public void theSizeOfTheScreenshotIsKeptFromTakingIt() {
+        DummyDriverFacade driver = spy(new DummyDriverFacade());
+        UISnapshot snapshot = new ResponsiveUIValidator(driver).snapshot();
+
+        assertThat(snapshot.getScreenshotExtend()).isEqualTo(driver.getExtend(snapshot.takeScreenshot()));
+        verify(driver, times(1)).takeScreenshot(any(File.class), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    public void capturingTheLayoutCapturesTheDefaultStylesOnly() {
+        DummyDriverFacade driver = spy(new DummyDriverFacade());
+        doReturn(true).when(driver).isBatchedCaptureSupported();
+        doReturn(new PageLayout()).when(driver).retrievePageLayout(anyString(), anyList());
+
+        new ResponsiveUIValidator(driver).snapshot().captureLayout();
+
+        verify(driver).retrievePageLayout("html", UISnapshot.DEFAULT_CSS_PROPERTIES);
+    }
+
+    @Test
+    public void resultsOfConcurrentSnapshotsAreAllReported() throws InterruptedException {
+        ResponsiveUIValidator validator = new ResponsiveUIValidator(new DummyDriverFacade());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            String jsonFile = "result" + i + ".json";
+            executor.execute(() -> validator.addJsonFile(jsonFile));
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertThat(validator.getJsonFiles()).hasSize(1000).doesNotHaveDuplicates();
+    }
+}
@@ -0,0 +1,43 @@
+package net.itarray.automotion.tests.geometry;
+
+import net.itarray.automotion.internal.geometry.ConnectedIntervals;
+import org.junit.Test;
+
+import static net.itarray.automotion.internal.geometry.Interval.interval;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConnectedIntervalsTest {
+
+    private final ConnectedIntervals intervals = new ConnectedIntervals(
+            new int[]{30, 0, 10, 50, 35, 60},
+            new int[]{40, 10, 20, 60, 45, 60});
+
+    @Test
+    public void connectsOverlappingButNotTouchingIntervals() {
+        assertThat(intervals.size()).isEqualTo(4);
+        assertThat(intervals.get(0)).isEqualTo(interval(0, 10));
+        assertThat(intervals.get(1)).isEqualTo(interval(10, 20));
+        assertThat(intervals.get(2)).isEqualTo(interval(30, 45));
+        assertThat(intervals.get(3)).isEqualTo(interval(50, 60));
+    }
+
+    @Test
+    public void findsTheFirstComponentIntersectingAnInterval() {
+        assertThat(intervals.indexOf(0, 1)).isEqualTo(0);
+        assertThat(intervals.indexOf(9, 11)).isEqualTo(0);
+        assertThat(intervals.indexOf(10, 11)).isEqualTo(1);
+        assertThat(intervals.indexOf(15, 35)).isEqualTo(1);
+        assertThat(intervals.indexOf(44, 55)).isEqualTo(2);
+        assertThat(intervals.indexOf(interval(59, 70))).isEqualTo(3);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void rejectsIntervalsBetweenComponents() {
+        intervals.indexOf(20, 30);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void rejectsIntervalsBehindAllComponents() {
+        intervals.indexOf(60, 70);
+    }
+}
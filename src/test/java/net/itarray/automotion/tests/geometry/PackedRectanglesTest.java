@@ -0,0 +1,71 @@
+package net.itarray.automotion.tests.geometry;
+
+import net.itarray.automotion.internal.geometry.PackedRectangles;
+import net.itarray.automotion.internal.geometry.Rectangle;
+import net.itarray.automotion.internal.geometry.Vector;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PackedRectanglesTest {
+
+    private PackedRectangles rectangles;
+
+    @Before
+    public void setUp() {
+        rectangles = new PackedRectangles(0);
+        for (int i = 0; i < 20; i++) {
+            rectangles.add(i, 2 * i, 10 + i, 5 + 3 * i);
+        }
+    }
+
+    @Test
+    public void growsBeyondItsInitialCapacity() {
+        assertThat(rectangles).hasSize(20);
+    }
+
+    @Test
+    public void answersCoordinatesWithoutCreatingRectangles() {
+        assertThat(rectangles.left(7)).isEqualTo(7);
+        assertThat(rectangles.top(7)).isEqualTo(14);
+        assertThat(rectangles.right(7)).isEqualTo(17);
+        assertThat(rectangles.bottom(7)).isEqualTo(26);
+        assertThat(rectangles.width(7)).isEqualTo(10);
+        assertThat(rectangles.height(7)).isEqualTo(12);
+    }
+
+    @Test
+    public void createsRectanglesOnAccess() {
+        Rectangle rectangle = rectangles.get(7);
+        assertThat(rectangle.getOrigin()).isEqualTo(new Vector(7, 14));
+        assertThat(rectangle.getCorner()).isEqualTo(new Vector(17, 26));
+    }
+
+    @Test
+    public void packsListsOfRectangles() {
+        PackedRectangles packed = PackedRectangles.of(Arrays.asList(new Rectangle(1, 2, 3, 4), new Rectangle(5, 6, 7, 8)));
+        assertThat(packed).hasSize(2);
+        assertThat(packed.get(1).getOrigin()).isEqualTo(new Vector(5, 6));
+        assertThat(packed.get(1).getCorner()).isEqualTo(new Vector(7, 8));
+        assertThat(PackedRectangles.of(packed)).isSameAs(packed);
+    }
+
+    @Test
+    public void copiesCoordinatesFromOtherPackedRectangles() {
+        PackedRectangles copy = new PackedRectangles(0);
+        copy.add(0, 0, 0, 0);
+        copy.set(0, rectangles, 7);
+        assertThat(copy.left(0)).isEqualTo(7);
+        assertThat(copy.top(0)).isEqualTo(14);
+        assertThat(copy.right(0)).isEqualTo(17);
+        assertThat(copy.bottom(0)).isEqualTo(26);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsIndexesBeyondItsSize() {
+        rectangles.left(20);
+    }
+}
@@ -84,6 +84,23 @@ public class ScalarTest {
         assertThat(scalar.by(divisor)).isEqualTo(scalar(new Fraction(value, 2)));
     }
 
+    @Test
+    public void byScalarDividingEvenlyReturnsAnIntegralScalar() {
+        assertThat(scalar.times(scalar(2)).by(scalar(2))).isEqualTo(scalar);
+        assertThat(scalar.times(scalar(2)).by(scalar(2)).toString()).isEqualTo("13");
+    }
+
+    @Test
+    public void fractionsAddingUpToIntegersAreEqualToIntegralScalars() {
+        Scalar half = scalar.by(scalar(2));
+        assertThat(half.toString()).isEqualTo("13 / 2");
+        assertThat(half.plus(half)).isEqualTo(scalar);
+        assertThat(half.plus(half).hashCode()).isEqualTo(scalar.hashCode());
+        assertThat(half.compareTo(scalar(6))).isGreaterThan(0);
+        assertThat(half.compareTo(scalar(7))).isLessThan(0);
+        assertThat(half.intValue()).isEqualTo(6);
+    }
+
     @Test
     public void negatedReturnsAScalarWithValueEqualToNegatedValue() {
         assertThat(scalar.negated()).isEqualTo(scalar(-value));
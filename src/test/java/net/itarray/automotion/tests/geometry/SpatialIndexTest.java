@@ -0,0 +1,70 @@
+package net.itarray.automotion.tests.geometry;
+
+import net.itarray.automotion.internal.geometry.PackedRectangles;
+import net.itarray.automotion.internal.geometry.SpatialIndex;
+import net.itarray.automotion.internal.geometry.SpatialIndex.Key;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpatialIndexTest {
+
+    private PackedRectangles rectangles;
+    private SpatialIndex index;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(4711);
+        rectangles = new PackedRectangles(0);
+        for (int i = 0; i < 500; i++) {
+            int left = random.nextInt(1000) - 100;
+            int top = random.nextInt(800) - 100;
+            rectangles.add(left, top, left + random.nextInt(120), top + random.nextInt(90));
+        }
+        index = new SpatialIndex(rectangles);
+    }
+
+    @Test
+    public void findsAllIntersectingRectangles() {
+        Random random = new Random(815);
+        for (int query = 0; query < 100; query++) {
+            int left = random.nextInt(1200) - 200;
+            int top = random.nextInt(1000) - 200;
+            int right = left + random.nextInt(300) - 20;
+            int bottom = top + random.nextInt(200) - 20;
+            assertThat(index.intersecting(left, top, right, bottom)).isEqualTo(matching(i ->
+                    rectangles.left(i) < right && left < rectangles.right(i)
+                            && rectangles.top(i) < bottom && top < rectangles.bottom(i)));
+        }
+    }
+
+    @Test
+    public void findsRectanglesWithinAndOutsideOfARange() {
+        for (Key key : Key.values()) {
+            for (int from = -50; from < 900; from += 97) {
+                int lower = from;
+                int upper = from + 5;
+                assertThat(index.within(key, lower, upper)).isEqualTo(matching(i -> lower <= index.value(key, i) && index.value(key, i) <= upper));
+                assertThat(index.outside(key, lower, upper)).isEqualTo(matching(i -> index.value(key, i) < lower || upper < index.value(key, i)));
+            }
+        }
+    }
+
+    @Test
+    public void findsNothingInAnEmptyIndex() {
+        SpatialIndex empty = new SpatialIndex(new PackedRectangles(0));
+        assertThat(empty.intersecting(0, 0, 10, 10)).isEmpty();
+        assertThat(empty.outside(Key.LEFT, 0, 10)).isEmpty();
+    }
+
+    private List<Integer> matching(IntPredicate predicate) {
+        return IntStream.range(0, rectangles.size()).filter(predicate).boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,60 @@
+package net.itarray.automotion.tests.grid;
+
+import net.itarray.automotion.internal.geometry.InferredGrid;
+import net.itarray.automotion.internal.geometry.PackedRectangles;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static net.itarray.automotion.internal.geometry.Scalar.scalar;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InferredGridTest {
+
+    private PackedRectangles rectangles;
+
+    @Before
+    public void setUp() {
+        rectangles = new PackedRectangles(0);
+        rectangles.add(0, 0, 10, 10);
+        rectangles.add(21, 1, 31, 11);
+        rectangles.add(40, 0, 50, 10);
+        rectangles.add(1, 20, 11, 30);
+        rectangles.add(20, 22, 30, 32);
+    }
+
+    @Test
+    public void exactTopsAndLeftsWithoutTolerance() {
+        InferredGrid grid = new InferredGrid(rectangles, scalar(0));
+        assertThat(grid.getRowSizes()).containsExactly(2, 1, 1, 1);
+        assertThat(grid.getColumnCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void rowsAndColumnsWithinTolerance() {
+        InferredGrid grid = new InferredGrid(rectangles, scalar(2));
+        assertThat(grid.getRowSizes()).containsExactly(3, 2);
+        assertThat(grid.getColumns()).containsExactly(Arrays.asList(0, 3), Arrays.asList(4, 1), Arrays.asList(2));
+        assertThat(grid.rowOf(4)).isEqualTo(1);
+        assertThat(grid.columnOf(1)).isEqualTo(1);
+    }
+
+    @Test
+    public void negativeCoordinatesAreOrderedBeforePositiveOnes() {
+        PackedRectangles shifted = new PackedRectangles(0);
+        shifted.add(5, 3, 15, 13);
+        shifted.add(-20, -30, -10, -20);
+        shifted.add(-19, 2, -9, 12);
+        InferredGrid grid = new InferredGrid(shifted, scalar(2));
+        assertThat(grid.getRows()).containsExactly(Arrays.asList(1), Arrays.asList(2, 0));
+        assertThat(grid.getColumns()).containsExactly(Arrays.asList(1, 2), Arrays.asList(0));
+    }
+
+    @Test
+    public void emptyGrids() {
+        InferredGrid grid = new InferredGrid(new PackedRectangles(0), scalar(2));
+        assertThat(grid.getRowCount()).isZero();
+        assertThat(grid.getColumnCount()).isZero();
+    }
+}
@@ -0,0 +1,92 @@
+package net.itarray.automotion.tests.properties;
+
+import net.itarray.automotion.internal.geometry.Direction;
+import net.itarray.automotion.internal.geometry.ExtendGiving;
+import net.itarray.automotion.internal.geometry.MetricSpace;
+import net.itarray.automotion.internal.geometry.Scalar;
+import net.itarray.automotion.internal.properties.CompiledCondition;
+import net.itarray.automotion.internal.properties.Context;
+import net.itarray.automotion.validation.properties.Condition;
+import net.itarray.automotion.validation.properties.Expression;
+import org.junit.Before;
+import org.junit.Test;
+
+import static net.itarray.automotion.internal.geometry.Scalar.scalar;
+import static net.itarray.automotion.internal.properties.CompiledCondition.compile;
+import static net.itarray.automotion.internal.properties.PercentReference.PAGE;
+import static net.itarray.automotion.validation.properties.Expression.percent;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompiledConditionTest {
+
+    private CountingExpression width;
+    private Context context;
+
+    @Before
+    public void setUp() {
+        width = new CountingExpression(scalar(12));
+        context = new TestContext();
+    }
+
+    @Test
+    public void isNotSharedOutsideOfAValidator() {
+        assertThat(context.compiled(Condition.between(3).and(10))).isNotSameAs(context.compiled(Condition.between(3).and(10)));
+    }
+
+    @Test
+    public void evaluatesTheConditionedValueOnce() {
+        CompiledCondition<Scalar>.Evaluation evaluation = compile(Condition.between(3).and(10)).evaluate(width, context, Direction.RIGHT);
+
+        assertThat(evaluation.isSatisfied()).isFalse();
+        assertThat(evaluation.getValue()).isEqualTo(scalar(12));
+        assertThat(width.evaluations).isEqualTo(1);
+    }
+
+    @Test
+    public void describesWithTheEvaluatedValues() {
+        Condition<Scalar> condition = Condition.lessOrEqualTo(percent(5, PAGE));
+        CompiledCondition<Scalar>.Evaluation evaluation = compile(condition).evaluate(width, context, Direction.RIGHT);
+
+        String description = condition.applyTo(width).getDescription(evaluation.describing(), Direction.RIGHT);
+
+        assertThat(description).isEqualTo("Expected width to be less or equal to 5% of page (10px). Actual width is: 12px");
+        assertThat(width.evaluations).isEqualTo(1);
+    }
+
+    @Test
+    public void evaluatesUnknownConditionsAsAWhole() {
+        Condition<Scalar> even = new Condition<Scalar>() {
+            @Override
+            public <V extends MetricSpace<V>> boolean isSatisfiedOn(Expression<Scalar> toBeConditioned, Context context, ExtendGiving<V> direction) {
+                return toBeConditioned.evaluateIn(context, direction).intValue() % 2 == 0;
+            }
+
+            @Override
+            public <V extends MetricSpace<V>> String getDescription(Context context, ExtendGiving<V> direction) {
+                return "even";
+            }
+        };
+
+        assertThat(compile(even).evaluate(width, context, Direction.RIGHT).isSatisfied()).isTrue();
+    }
+
+    private static class CountingExpression implements Expression<Scalar> {
+        private final Scalar value;
+        private int evaluations;
+
+        private CountingExpression(Scalar value) {
+            this.value = value;
+        }
+
+        @Override
+        public <V extends MetricSpace<V>> Scalar evaluateIn(Context context, ExtendGiving<V> direction) {
+            evaluations++;
+            return value;
+        }
+
+        @Override
+        public <V extends MetricSpace<V>> String getDescription(Context context, ExtendGiving<V> direction) {
+            return "width";
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package net.itarray.automotion.tests.properties;
+
+import net.itarray.automotion.internal.geometry.Direction;
+import net.itarray.automotion.internal.geometry.Rectangle;
+import net.itarray.automotion.internal.properties.PagePercentages;
+import org.junit.Before;
+import org.junit.Test;
+
+import static net.itarray.automotion.internal.geometry.Scalar.scalar;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PagePercentagesTest {
+
+    private PagePercentages percentages;
+
+    @Before
+    public void setUp() {
+        percentages = new PagePercentages(new Rectangle(0, 0, 200, 150));
+    }
+
+    @Test
+    public void resolvesPercentagesAgainstTheExtendOfThePageInTheDirection() {
+        assertThat(percentages.resolve(scalar(27), Direction.RIGHT)).isEqualTo(scalar(54));
+        assertThat(percentages.resolve(scalar(10), Direction.DOWN)).isEqualTo(scalar(15));
+    }
+
+    @Test
+    public void resolvesEqualToUnresolvedPercentages() {
+        assertThat(percentages.resolve(scalar(3), Direction.UP))
+                .isEqualTo(PagePercentages.resolve(scalar(3), Direction.UP, percentages.getPage()));
+    }
+
+    @Test
+    public void answersResolvedPercentagesAgain() {
+        assertThat(percentages.resolve(scalar(7), Direction.LEFT)).isSameAs(percentages.resolve(scalar(7), Direction.LEFT));
+    }
+}
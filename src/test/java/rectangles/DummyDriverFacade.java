@@ -1,5 +1,6 @@
 package rectangles;
 
+import net.itarray.automotion.internal.ArtifactWriter;
 import net.itarray.automotion.internal.DriverFacade;
 import net.itarray.automotion.internal.geometry.Vector;
 import net.itarray.automotion.validation.properties.Expression;
@@ -38,8 +39,9 @@ public class DummyDriverFacade extends DriverFacade {
     }
 
     @Override
-    public void takeScreenshot(File file) {
+    public Vector takeScreenshot(File file, int headerCutPx, int footerCutPx, ArtifactWriter artifacts) {
         // do nothing here
+        return screenSize;
     }
 
     @Override